@@ -1,39 +1,105 @@
 package A2Q2;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Adaptible priority queue using location-aware entries in a min-heap, based on
- * an extendable array.  The order in which equal entries were added is preserved.
+ * an extendable array.  The order in which equal entries were added is preserved:
+ * each entry carries a primitive insertion sequence number, which breaks ties
+ * between entries the comparator finds equal.
+ * An entry offered where an equal entry already sits at the node it would
+ * stop below joins the run of entries queued behind that one instead of
+ * taking a node of its own.  Runs are FIFO lists of linked slots; the heap
+ * orders the first entry of each run, and when it leaves, the next entry of
+ * its run takes over its node.  With many ties the heap holds few nodes, so
+ * entries sink only past runs of other keys, not below every older equal
+ * entry.  The location reported through the Locator is the node of an entry
+ * first in its run, and the slot of any other with bit 30 set.
+ * The branching factor of the heap is set at construction; wider heaps are
+ * shallower, which saves cache misses on deep queues.
  *
  * @author jameselder
  * @param <E> The entry type.
  */
-public class APQ<E> {
+public class APQ<E> implements AdaptablePriorityQueue<E> {
 
-    private final ArrayList<E> apq; //will store the min heap
+    private static final int FOLLOWER = 1 << 30; //set in the location of an entry behind the first in its run
+
+    private final ArrayList<E> apq; //will store the min heap of the first entry of each run
     private final Comparator<E> comparator; //to compare the entries
     private final Locator<E> locator;  //to locate the entries within the queue
+    private final int arity; //number of children of each node
+    private long[] seqs = new long[16]; //insertion sequence number of the entry at each node
+    private int[] runs = new int[16]; //list of the entries queued behind the entry at each node, 0 if none
+    private final LinkedSlots<E> followers = new LinkedSlots<>(1); //one list per run; list 0 is not used
+    private long[] followerSeqs = new long[16]; //insertion sequence number of the entry in each slot
+    private int size;
+    private long nextSeq; //sequence number of the next entry added
+    private long sifts; //levels moved by entries, for metrics
 
     /**
-     * Constructor
+     * Constructor for a binary heap
      * @param comparator used to compare the entries
      * @param locator used to locate the entries in the queue
      * @throws NullPointerException if comparator or locator parameters are null
      */
     public APQ(Comparator<E> comparator, Locator<E> locator) throws NullPointerException {
+        this(comparator, locator, 2);
+    }
+
+    /**
+     * Constructor
+     * @param comparator used to compare the entries
+     * @param locator used to locate the entries in the queue
+     * @param arity number of children of each node, e.g. 2, 4 or 8
+     * @throws NullPointerException if comparator or locator parameters are null
+     * @throws IllegalArgumentException if arity is less than 2
+     */
+    public APQ(Comparator<E> comparator, Locator<E> locator, int arity) throws NullPointerException {
         if (comparator == null || locator == null) {
             throw new NullPointerException();
         }
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be at least 2");
+        }
         apq = new ArrayList<>();
         apq.add(null); //dummy value at index = 0
         this.comparator = comparator;
         this.locator = locator;
+        this.arity = arity;
+    }
 
+    /**
+     * Bulk constructor for a binary heap, built bottom-up in linear time
+     * @param comparator used to compare the entries
+     * @param locator used to locate the entries in the queue
+     * @param entries initial entries
+     * @throws NullPointerException if any parameter or entry is null
+     */
+    public APQ(Comparator<E> comparator, Locator<E> locator, Collection<? extends E> entries) throws NullPointerException {
+        this(comparator, locator, 2, entries);
+    }
+
+    /**
+     * Bulk constructor, built bottom-up in linear time
+     * @param comparator used to compare the entries
+     * @param locator used to locate the entries in the queue
+     * @param arity number of children of each node, e.g. 2, 4 or 8
+     * @param entries initial entries
+     * @throws NullPointerException if any parameter or entry is null
+     * @throws IllegalArgumentException if arity is less than 2
+     */
+    public APQ(Comparator<E> comparator, Locator<E> locator, int arity, Collection<? extends E> entries) throws NullPointerException {
+        this(comparator, locator, arity);
+        addAll(entries);
     }
 
     /**
-     * Inserts the specified entry into this priority queue.
+     * Inserts the specified entry into this priority queue.  The path from
+     * the new leaf is searched for the node the entry would stop below; if
+     * that node holds an equal entry, the new one joins its run.  Otherwise
+     * the nodes passed move down and the entry takes a node of its own.
      *
      * @param e the entry to insert
      * @throws NullPointerException if parameter e is null
@@ -42,49 +108,250 @@ public class APQ<E> {
     	if (e == null){
     		throw new NullPointerException();
     	}
+    	long seq = nextSeq++;
+    	int pos = apq.size(); //the new leaf
+    	while (pos > 1) {
+    		int c = comparator.compare(e, apq.get(parent(pos)));
+    		if (c == 0) {
+    			follow(parent(pos), e, seq);
+    			return;
+    		}
+    		if (c > 0) {
+    			break;
+    		}
+    		pos = parent(pos);
+    	}
+    	int hole = apq.size();
     	apq.add(e);
-    	locator.set(e, apq.size()-1);
-    	if(apq.size()>2){
-    		upheap(locator.get(e)); 
+    	ensureNodes(hole);
+    	while (hole != pos) {
+    		move(parent(hole), hole);
+    		hole = parent(hole);
     	}
-    	 
+    	place(pos, e, seq, 0);
+    	size++;
+    }
+
+    /**
+     * Inserts all of the specified entries into this priority queue.  Unless
+     * there are fewer new entries than queued ones, the entries are appended,
+     * each joining the run of the one before if they are equal, and the heap
+     * is rebuilt bottom-up (Floyd's method) in linear time.
+     *
+     * @param entries the entries to insert
+     * @throws NullPointerException if entries or any entry is null
+     */
+    public void addAll(Collection<? extends E> entries) throws NullPointerException {
+        for (E e : entries) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+        }
+        if (entries.size() < size()) {
+            for (E e : entries) {
+                offer(e);
+            }
+            return;
+        }
+        apq.ensureCapacity(apq.size() + entries.size());
+        int previous = 0; //node of the entry before, 0 for none
+        for (E e : entries) {
+            long seq = nextSeq++;
+            if (previous != 0 && comparator.compare(e, apq.get(previous)) == 0) {
+                follow(previous, e, seq);
+                continue;
+            }
+            previous = apq.size();
+            apq.add(e);
+            ensureNodes(previous);
+            place(previous, e, seq, 0);
+            size++;
+        }
+        heapify();
+    }
+
+    /**
+     * Removes all of the specified entries, which must be distinct and in the
+     * queue.  Entries behind the first in their run are unlinked in constant
+     * time.  A few others are removed one at a time; once that would cost
+     * more than rebuilding, the surviving nodes are compacted in one pass and
+     * the heap is rebuilt bottom-up in linear time.
+     *
+     * @param entries the entries to remove
+     * @throws NullPointerException if entries or any entry is null
+     * @throws BoundaryViolationException if an entry is not at its reported location
+     */
+    public void removeAll(Collection<? extends E> entries) throws NullPointerException, BoundaryViolationException {
+        for (E e : entries) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            if (!holds(e, locator.get(e))) {
+                throw new BoundaryViolationException();
+            }
+        }
+        int firsts = 0; //entries first in their runs
+        for (E e : entries) {
+            int pos = locator.get(e);
+            if ((pos & FOLLOWER) != 0) {
+                followers.unlink(pos ^ FOLLOWER);
+                size--;
+            } else {
+                firsts++;
+            }
+        }
+        int n = apq.size() - 1;
+        if ((long) firsts * (32 - Integer.numberOfLeadingZeros(n)) <= n) {
+            for (E e : entries) {
+                int pos = locator.get(e);
+                if ((pos & FOLLOWER) == 0) {
+                    remove(pos);
+                }
+            }
+            return;
+        }
+        BitSet removed = new BitSet(n + 1);
+        for (E e : entries) {
+            int pos = locator.get(e);
+            if ((pos & FOLLOWER) == 0) {
+                removed.set(pos);
+            }
+        }
+        int to = 1;
+        for (int from = 1; from <= n; from++) {
+            if (removed.get(from)) {
+                size--;
+                if (!promote(from)) {
+                    continue;
+                }
+            }
+            place(to, apq.get(from), seqs[from], runs[from]);
+            to++;
+        }
+        apq.subList(to, apq.size()).clear();
+        heapify();
+    }
+
+    /**
+     * Removes every entry that satisfies filter, compacting the surviving
+     * nodes in one pass and rebuilding the heap bottom-up in linear time.
+     */
+    public boolean removeIf(Predicate<? super E> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException();
+        }
+        int before = size;
+        int n = apq.size() - 1;
+        int to = 1;
+        for (int from = 1; from <= n; from++) {
+            int run = runs[from];
+            if (run != 0) {
+                int slot = followers.head(run);
+                while (slot != 0) {
+                    int next = followers.next(slot);
+                    if (filter.test(followers.get(slot))) {
+                        followers.unlink(slot);
+                        size--;
+                    }
+                    slot = next;
+                }
+            }
+            if (filter.test(apq.get(from))) {
+                size--;
+                if (!promote(from)) {
+                    continue;
+                }
+            }
+            place(to, apq.get(from), seqs[from], runs[from]);
+            to++;
+        }
+        if (size == before) {
+            return false;
+        }
+        apq.subList(to, apq.size()).clear();
+        heapify();
+        return true;
+    }
+
+    /**
+     * Restores the minheap property over the whole array, bottom-up
+     */
+    private void heapify() {
+        for (int pos = parent(apq.size() - 1); pos >= 1 && apq.size() > 2; pos--) {
+            downheap(pos);
+        }
+    }
+
+    /**
+     * Restores the heap after the key of an entry has changed.  The entry
+     * takes the next insertion sequence number, so it goes behind every
+     * entry with an equal key.  An entry alone in its run is sifted up or
+     * down from its node; any other is removed and offered again.
+     *
+     * @param e the entry whose key has changed
+     * @throws NullPointerException if parameter e is null
+     * @throws BoundaryViolationException if e is not at its reported location
+     */
+    public void update(E e) throws NullPointerException, BoundaryViolationException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int pos = locator.get(e);
+        if (!holds(e, pos)) {
+            throw new BoundaryViolationException();
+        }
+        if ((pos & FOLLOWER) != 0 || runs[pos] != 0 && !followers.isEmpty(runs[pos])) {
+            remove(pos);
+            offer(e);
+            return;
+        }
+        seqs[pos] = nextSeq++;
+        if (pos > 1 && compare(parent(pos), pos) > 0) {
+            upheap(pos);
+        }
+        else {
+            downheap(pos);
+        }
     }
 
    /**
-     * Removes the entry at the specified location.
+     * Removes the entry at the specified location.  The next entry of its
+     * run, if any, takes over its node.
      *
      * @param pos the location of the entry to remove
      * @throws BoundaryViolationException if pos is out of range
      */
 	public void remove(int pos) throws BoundaryViolationException {
+		if ((pos & FOLLOWER) != 0) {
+			if (!followers.contains(pos ^ FOLLOWER)) {
+				throw new BoundaryViolationException();
+			}
+			followers.unlink(pos ^ FOLLOWER);
+			size--;
+			return;
+		}
 		if (pos > apq.size()-1 || pos<=0) {
 			throw new BoundaryViolationException();
 		}
-		else if(pos == apq.size()-1){   
+		size--;
+		if (promote(pos)) {
+			downheap(pos);
+		}
+		else if(pos == apq.size()-1){
 			apq.remove(apq.size() - 1);
 		}
 		else{
-			apq.set(pos, apq.get(apq.size()-1));
-			locator.set(apq.get(apq.size()-1), pos);
-			apq.remove(apq.size()-1);
-			if (2 * pos <(apq.size()-1)) {     //Ҷchild
-				if (comparator.compare(apq.get(pos / 2), apq.get(pos)) > 0) {
-					upheap(pos);
-				} 
-				else if (comparator.compare(apq.get(pos), apq.get(pos * 2)) > 0
-						|| comparator.compare(apq.get(pos), apq.get(pos * 2 + 1)) > 0) {
-					downheap(pos);}
+			int last = apq.size()-1;
+			place(pos, apq.get(last), seqs[last], runs[last]);
+			apq.remove(last);
+			if (pos > 1 && compare(parent(pos), pos) > 0) {
+				upheap(pos);
 			}
-			
-			else if(2*pos == ( apq.size()-1)){  //ֻһleft child
+			else {
 				downheap(pos);
 			}
-
-			else if(2*pos > (apq.size()-1)){
-				upheap(pos);
-			}
 		}
-		
+
 	}
 
    /**
@@ -95,10 +362,34 @@ public class APQ<E> {
     		return null;
     	}
     	E temp = apq.get(1);
-    	apq.set(1, apq.get(apq.size()-1));
-    	locator.set(apq.get(apq.size()-1), 1);
-    	apq.remove(apq.size()-1);
-    	downheap(1);
+    	size--;
+    	if (promote(1)) {
+    		downheap(1);
+    		return temp;
+    	}
+    	int lastPos = apq.size()-1;
+    	long lastSeq = seqs[lastPos];
+    	int lastRun = runs[lastPos];
+    	E last = apq.remove(lastPos);
+    	if (lastPos > 1) {
+    		//the last node usually belongs near the bottom, so walk the hole
+    		//down to a leaf first and then sift the last node up from there
+    		int pos = 1;
+    		int child;
+    		while ((child = firstChild(pos)) < apq.size()) {
+    			int end = Math.min(child + arity - 1, apq.size() - 1);
+    			int min = child;
+    			for (int c = child + 1; c <= end; c++) {
+    				if (compare(c, min) < 0) {
+    					min = c;
+    				}
+    			}
+    			move(min, pos);
+    			pos = min;
+    		}
+    		place(pos, last, lastSeq, lastRun);
+    		upheap(pos);
+    	}
     	return temp;
 
     }
@@ -113,12 +404,97 @@ public class APQ<E> {
         return apq.get(1);
     }
 
+  /**
+     * Returns the entries in the order in which repeated polls would return
+     * them, sorting a copy of the queue in n log n time.
+     */
+    public List<E> toList() {
+        List<E> all = new ArrayList<>(size);
+        long[] order = collect(all);
+        Integer[] index = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = i;
+        }
+        Arrays.sort(index, (a, b) -> {
+            int c = comparator.compare(all.get(a), all.get(b));
+            return c != 0 ? c : Long.compare(order[a], order[b]);
+        });
+        return pick(all, index);
+    }
+
+  /**
+     * Visits the entries in order, walking the heap best first: each node
+     * visited puts its children and the rest of its run on a frontier, one
+     * entry of the run at a time, so visiting k entries takes O(k log k)
+     * time for a fixed arity.
+     */
+    public void forEachInOrder(Predicate<? super E> visitor) throws NullPointerException {
+        if (visitor == null) {
+            throw new NullPointerException();
+        }
+        if (isEmpty()) {
+            return;
+        }
+        Frontier frontier = new Frontier(this::before);
+        frontier.offer(1);
+        while (!frontier.isEmpty()) {
+            int pos = frontier.poll();
+            if ((pos & FOLLOWER) != 0) {
+                if (!visitor.test(followers.get(pos ^ FOLLOWER))) {
+                    return;
+                }
+                int next = followers.next(pos ^ FOLLOWER);
+                if (next != 0) {
+                    frontier.offer(FOLLOWER | next);
+                }
+                continue;
+            }
+            if (!visitor.test(apq.get(pos))) {
+                return;
+            }
+            if (runs[pos] != 0 && !followers.isEmpty(runs[pos])) {
+                frontier.offer(FOLLOWER | followers.head(runs[pos]));
+            }
+            int last = Math.min(firstChild(pos) + arity, apq.size());
+            for (int c = firstChild(pos); c < last; c++) {
+                frontier.offer(c);
+            }
+        }
+    }
+
+  /**
+     * Returns the entries in the order in which they were inserted or last
+     * updated, which decides how ties are broken.  Adding them in this order
+     * to an empty queue gives a queue that breaks ties as this one does.
+     */
+    public List<E> toInsertionList() {
+        List<E> all = new ArrayList<>(size);
+        long[] order = collect(all);
+        Integer[] index = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = i;
+        }
+        Arrays.sort(index, (a, b) -> Long.compare(order[a], order[b]));
+        return pick(all, index);
+    }
+
+    public void clear() {
+        apq.subList(1, apq.size()).clear();
+        followers.clear();
+        size = 0;
+        nextSeq = 0;
+    }
+
+    public long getSiftCount() {
+        return sifts;
+    }
+
    public boolean isEmpty() {
-        return (size() == 0); 
+        return (size() == 0);
     }
 
     public int size() {
-        return apq.size() - 1; //dummy node at location 0
+        return size;
     }
 
 
@@ -126,58 +502,190 @@ public class APQ<E> {
      * Shift the entry at pos upward in the heap to restore the minheap property
      * @param pos the location of the entry to move
      */
-    private void upheap(int pos) { 
-    		while(pos >= 2 && comparator.compare(apq.get(pos/2), apq.get(pos)) > 0){
-        		swap(pos,pos/2);
-        		pos = pos/2;
-        	}
-    	}
-
-   
+    private void upheap(int pos) {
+        while (pos >= 2 && compare(parent(pos), pos) > 0) {
+            swap(pos, parent(pos));
+            pos = parent(pos);
+        }
+    }
 
     /**
      * Shift the entry at pos downward in the heap to restore the minheap property
      * @param pos the location of the entry to move
      */
-	private void downheap(int pos) {
-		// һ֣ûУұҲûУǾʲôҪ,ΪѾ
-		// ڶ֣Уұû
-		// ֣Уұ
-
-		while (2 * pos < apq.size()-1) { //child
-			if (comparator.compare(apq.get(pos), apq.get(pos * 2)) > 0) { //parent  left child
-				if (comparator.compare(apq.get(2 * pos), apq.get(2 * pos + 1)) >= 0) { //Ƚߺұߣߴ󣬺ұ߻
-					swap(pos, pos * 2 + 1);
-					pos = pos * 2 + 1;
-				} 
-				else if (comparator.compare(apq.get(2 * pos), apq.get(2 * pos + 1)) < 0) {//ұ߱Ƚϴ󣬺߻
-					swap(pos, pos * 2);
-					pos = pos * 2;
-				}
-			} 
-			
-			else if (comparator.compare(apq.get(pos), apq.get(pos * 2)) <= 0) { // parent С left child
-				if (comparator.compare(apq.get(pos), apq.get(pos * 2 + 1)) > 0) { //parent  right child,ұߵ
-					swap(pos, pos * 2 + 1);
-					pos = pos * 2 + 1;
-				}
-			}
-		}
-		
-		if (2 * pos == apq.size()-1) { //ֻleft child
-			if (comparator.compare(apq.get(pos), apq.get(pos * 2)) >= 0) {
-				swap(pos, pos * 2);
-				pos = pos * 2;
-			}
-		}
-	}
-    	
+    private void downheap(int pos) {
+        int child;
+        while ((child = firstChild(pos)) < apq.size()) {
+            int last = Math.min(child + arity - 1, apq.size() - 1);
+            int min = child; //smallest child
+            for (int c = child + 1; c <= last; c++) {
+                if (compare(c, min) < 0) {
+                    min = c;
+                }
+            }
+            if (compare(pos, min) <= 0) {
+                break;
+            }
+            swap(pos, min);
+            pos = min;
+        }
+    }
+
+    /**
+     * Compares the entries at two nodes, breaking ties by insertion order
+     * @return negative, zero or positive as the entry at pos1 comes before,
+     * is, or comes after the entry at pos2
+     */
+    private int compare(int pos1, int pos2) {
+        int c = comparator.compare(apq.get(pos1), apq.get(pos2));
+        if (c != 0) {
+            return c;
+        }
+        return Long.compare(seqs[pos1], seqs[pos2]);
+    }
+
+    /**
+     * @return true if the entry at location loc1, a node or a follower,
+     * comes before the entry at loc2
+     */
+    private boolean before(int loc1, int loc2) {
+        E e1 = (loc1 & FOLLOWER) != 0 ? followers.get(loc1 ^ FOLLOWER) : apq.get(loc1);
+        E e2 = (loc2 & FOLLOWER) != 0 ? followers.get(loc2 ^ FOLLOWER) : apq.get(loc2);
+        int c = comparator.compare(e1, e2);
+        if (c != 0) {
+            return c < 0;
+        }
+        long seq1 = (loc1 & FOLLOWER) != 0 ? followerSeqs[loc1 ^ FOLLOWER] : seqs[loc1];
+        long seq2 = (loc2 & FOLLOWER) != 0 ? followerSeqs[loc2 ^ FOLLOWER] : seqs[loc2];
+        return seq1 < seq2;
+    }
+
+    /**
+     * @return true if e is at location pos
+     */
+    private boolean holds(E e, int pos) {
+        if ((pos & FOLLOWER) != 0) {
+            return followers.contains(pos ^ FOLLOWER) && followers.get(pos ^ FOLLOWER) == e;
+        }
+        return pos > 0 && pos < apq.size() && apq.get(pos) == e;
+    }
+
+    /**
+     * Queues an entry behind the others in the run at a node.
+     */
+    private void follow(int pos, E e, long seq) {
+        if (runs[pos] == 0) {
+            runs[pos] = followers.addList();
+        }
+        int slot = followers.append(runs[pos], e);
+        if (slot >= followerSeqs.length) {
+            followerSeqs = Arrays.copyOf(followerSeqs, 2 * followerSeqs.length);
+        }
+        followerSeqs[slot] = seq;
+        locator.set(e, FOLLOWER | slot);
+        size++;
+    }
+
+    /**
+     * Moves the next entry of the run at a node, whose entry has left, into
+     * the node.  Its key is equal and its sequence number later, so the node
+     * can only need to sift down.
+     *
+     * @return false, releasing the run, if the run has no other entry
+     */
+    private boolean promote(int pos) {
+        int run = runs[pos];
+        if (run == 0) {
+            return false;
+        }
+        int slot = followers.head(run);
+        if (slot == 0) {
+            followers.releaseList(run);
+            return false;
+        }
+        long seq = followerSeqs[slot];
+        place(pos, followers.unlink(slot), seq, run);
+        return true;
+    }
+
+    /**
+     * Lists every entry, nodes first and then runs.
+     *
+     * @param all list to add the entries to
+     * @return the sequence number of each entry listed, by index in all
+     */
+    private long[] collect(List<E> all) {
+        long[] order = new long[size];
+        for (int pos = 1; pos < apq.size(); pos++) {
+            order[all.size()] = seqs[pos];
+            all.add(apq.get(pos));
+        }
+        for (int pos = 1; pos < apq.size(); pos++) {
+            if (runs[pos] != 0) {
+                for (int slot = followers.head(runs[pos]); slot != 0; slot = followers.next(slot)) {
+                    order[all.size()] = followerSeqs[slot];
+                    all.add(followers.get(slot));
+                }
+            }
+        }
+        return order;
+    }
+
+    private List<E> pick(List<E> all, Integer[] index) {
+        List<E> list = new ArrayList<>(index.length);
+        for (int i : index) {
+            list.add(all.get(i));
+        }
+        return list;
+    }
+
+    /**
+     * Grows the arrays parallel to the heap to hold node pos.
+     */
+    private void ensureNodes(int pos) {
+        if (pos >= seqs.length) {
+            seqs = Arrays.copyOf(seqs, 2 * seqs.length);
+            runs = Arrays.copyOf(runs, 2 * runs.length);
+        }
+    }
+
+    /**
+     * @return location of the parent of the entry at pos
+     */
+    private int parent(int pos) {
+        return (pos - 2) / arity + 1;
+    }
+
+    /**
+     * @return location of the first child of the entry at pos
+     */
+    private int firstChild(int pos) {
+        return arity * (pos - 1) + 2;
+    }
+
+    /**
+     * Puts an entry, its sequence number and its run at a node.
+     */
+    private void place(int pos, E e, long seq, int run) {
+        apq.set(pos, e);
+        seqs[pos] = seq;
+        runs[pos] = run;
+        locator.set(e, pos);
+    }
+
+    /**
+     * Moves the node at from into the hole at to.
+     */
+    private void move(int from, int to) {
+        place(to, apq.get(from), seqs[from], runs[from]);
+        sifts++;
+    }
 
     /**
      * Swaps the entries at the specified locations.
      *
-     * @param pos1 the location of the first entry 
-     * @param pos2 the location of the second entry 
+     * @param pos1 the location of the first entry
+     * @param pos2 the location of the second entry
      */
     private void swap(int pos1, int pos2) {
     	E temp1 = apq.get(pos1);
@@ -186,8 +694,13 @@ public class APQ<E> {
     	locator.set(temp2, pos1);
     	apq.set(pos1, temp2);
     	apq.set(pos2, temp1);
-    	
-        //implement this method
+    	long seq = seqs[pos1];
+    	seqs[pos1] = seqs[pos2];
+    	seqs[pos2] = seq;
+    	int run = runs[pos1];
+    	runs[pos1] = runs[pos2];
+    	runs[pos2] = run;
+    	sifts++;
     }
-    
-}
\ No newline at end of file
+
+}
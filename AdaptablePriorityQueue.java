@@ -0,0 +1,164 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Interface for adaptable priority queues of location-aware entries.  The
+ * queue reports the integer location of each entry through a Locator, and
+ * entries can be removed from any location.  Locations are positive integers.
+ *
+ * @param <E> The entry type.
+ */
+public interface AdaptablePriorityQueue<E> {
+
+    /**
+     * Returns whether this queue can hold the specified entry.  Queues that
+     * hold only some keys, such as those kept in buckets or in arrival order,
+     * refuse the others, and offering a refused entry throws
+     * IllegalArgumentException.  Other queues accept every entry.
+     *
+     * @param e the entry to test
+     * @return true if e can be offered
+     */
+    public default boolean accepts(E e) {
+        return true;
+    }
+
+    /**
+     * Returns whether this queue can hold all of the specified entries,
+     * added in order.
+     *
+     * @param entries the entries to test
+     * @return true if the entries can be added
+     */
+    public default boolean acceptsAll(Collection<? extends E> entries) {
+        for (E e : entries) {
+            if (!accepts(e)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the specified entry into this priority queue.
+     *
+     * @param e the entry to insert
+     * @throws NullPointerException if parameter e is null
+     */
+    public void offer(E e) throws NullPointerException;
+
+    /**
+     * Inserts all of the specified entries into this priority queue.
+     *
+     * @param entries the entries to insert
+     * @throws NullPointerException if entries or any entry is null
+     */
+    public void addAll(Collection<? extends E> entries) throws NullPointerException;
+
+    /**
+     * Restores the order of the queue after the key of an entry has changed,
+     * moving the entry from the location reported by the Locator.  The entry
+     * goes behind every entry with an equal key, as if it had been removed
+     * and offered again, even if its key is unchanged.
+     *
+     * @param e the entry whose key has changed
+     * @throws NullPointerException if parameter e is null
+     * @throws BoundaryViolationException if e is not at its reported location
+     */
+    public void update(E e) throws NullPointerException, BoundaryViolationException;
+
+    /**
+     * Removes the entry at the specified location.
+     *
+     * @param pos the location of the entry to remove
+     * @throws BoundaryViolationException if pos is out of range
+     */
+    public void remove(int pos) throws BoundaryViolationException;
+
+    /**
+     * Removes all of the specified entries, which must be distinct and in the
+     * queue.  Nothing is removed if any entry is not at its reported location.
+     *
+     * @param entries the entries to remove
+     * @throws NullPointerException if entries or any entry is null
+     * @throws BoundaryViolationException if an entry is not at its reported location
+     */
+    public void removeAll(Collection<? extends E> entries) throws NullPointerException, BoundaryViolationException;
+
+    /**
+     * Removes every entry that satisfies filter, in one pass.  filter is
+     * called exactly once for each entry.
+     *
+     * @param filter true for the entries to remove
+     * @return true if any entry was removed
+     * @throws NullPointerException if filter is null
+     */
+    public boolean removeIf(Predicate<? super E> filter) throws NullPointerException;
+
+    /**
+     * Removes the first entry in the priority queue.
+     *
+     * @return the first entry, or null if the queue is empty
+     */
+    public E poll();
+
+    /**
+     * Returns but does not remove the first entry in the priority queue.
+     *
+     * @return the first entry, or null if the queue is empty
+     */
+    public E peek();
+
+    /**
+     * Returns the entries in the order in which repeated polls would return
+     * them, without removing them.
+     *
+     * @return a new list of the entries, first entry first
+     */
+    public List<E> toList();
+
+    /**
+     * Visits the entries in the order in which repeated polls would return
+     * them, without removing them, until visitor returns false.  Queues
+     * ordered by a heap walk it best first, so stopping after k entries
+     * costs about k log k whatever the size of the queue; this default
+     * lists the whole queue first.  The queue must not change during the
+     * walk.
+     *
+     * @param visitor called with each entry in turn, returning false to stop
+     * @throws NullPointerException if visitor is null
+     */
+    public default void forEachInOrder(Predicate<? super E> visitor) throws NullPointerException {
+        if (visitor == null) {
+            throw new NullPointerException();
+        }
+        for (E e : toList()) {
+            if (!visitor.test(e)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all entries, keeping the space the queue has grown to.  The
+     * locations of the entries removed are left as they were.
+     */
+    public void clear();
+
+    /**
+     * Returns the number of levels that entries have moved up or down the
+     * queue since it was created, for metrics.  Queues that do not sift
+     * return 0.
+     *
+     * @return levels moved so far
+     */
+    public default long getSiftCount() {
+        return 0;
+    }
+
+    public boolean isEmpty();
+
+    public int size();
+}
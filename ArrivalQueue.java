@@ -0,0 +1,239 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Adaptable priority queue for entries that arrive in non-decreasing order,
+ * kept as a FIFO list in a pool of linked slots.  Offer, poll and remove all
+ * take constant time.  Entries that would break the order are refused; see
+ * accepts.  The location reported through the Locator is the slot holding
+ * the entry.
+ *
+ * @param <E> The entry type.
+ */
+public class ArrivalQueue<E> implements AdaptablePriorityQueue<E> {
+
+    private final LinkedSlots<E> slots; //a single list in arrival order
+    private final Comparator<E> comparator; //to check the arrival order
+    private final Locator<E> locator; //to locate the entries within the queue
+
+    /**
+     * Constructor
+     * @param comparator used to compare the entries
+     * @param locator used to locate the entries in the queue
+     * @throws NullPointerException if comparator or locator parameters are null
+     */
+    public ArrivalQueue(Comparator<E> comparator, Locator<E> locator) throws NullPointerException {
+        if (comparator == null || locator == null) {
+            throw new NullPointerException();
+        }
+        slots = new LinkedSlots<>(1);
+        this.comparator = comparator;
+        this.locator = locator;
+    }
+
+    /**
+     * @param e the entry to test
+     * @return true if e does not come before the last entry in the queue
+     */
+    public boolean accepts(E e) {
+        return slots.isEmpty(0) || comparator.compare(slots.get(slots.tail(0)), e) <= 0;
+    }
+
+    /**
+     * @param entries the entries to test, in the order they would be added
+     * @return true if the entries are in order and none comes before the last
+     * entry in the queue
+     */
+    public boolean acceptsAll(Collection<? extends E> entries) {
+        E last = isEmpty() ? null : slots.get(slots.tail(0));
+        for (E e : entries) {
+            if (last != null && comparator.compare(last, e) > 0) {
+                return false;
+            }
+            last = e;
+        }
+        return true;
+    }
+
+    /**
+     * Appends the specified entry to this queue.
+     *
+     * @param e the entry to insert
+     * @throws NullPointerException if parameter e is null
+     * @throws IllegalArgumentException if e comes before the last entry
+     */
+    public void offer(E e) throws NullPointerException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!accepts(e)) {
+            throw new IllegalArgumentException("entry out of order");
+        }
+        locator.set(e, slots.append(0, e));
+    }
+
+    /**
+     * Appends all of the specified entries to this queue, in order.
+     *
+     * @param entries the entries to insert
+     * @throws NullPointerException if entries or any entry is null
+     * @throws IllegalArgumentException if the entries are out of order
+     */
+    public void addAll(Collection<? extends E> entries) throws NullPointerException {
+        for (E e : entries) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+        }
+        if (!acceptsAll(entries)) {
+            throw new IllegalArgumentException("entries out of order");
+        }
+        for (E e : entries) {
+            offer(e);
+        }
+    }
+
+    /**
+     * Checks that an entry whose key has changed is still in order with its
+     * neighbours; a FIFO queue cannot move entries, so the entry must come
+     * after every entry with an equal key already.
+     *
+     * @param e the entry whose key has changed
+     * @throws NullPointerException if parameter e is null
+     * @throws BoundaryViolationException if e is not at its reported location
+     * @throws IllegalArgumentException if e is now out of order, or an entry
+     * behind it has an equal key
+     */
+    public void update(E e) throws NullPointerException, BoundaryViolationException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int pos = locator.get(e);
+        if (!slots.contains(pos) || slots.get(pos) != e) {
+            throw new BoundaryViolationException();
+        }
+        int before = slots.prev(pos);
+        int after = slots.next(pos);
+        if ((before != 0 && comparator.compare(slots.get(before), e) > 0)
+                || (after != 0 && comparator.compare(e, slots.get(after)) >= 0)) {
+            throw new IllegalArgumentException("entry out of order");
+        }
+    }
+
+    /**
+     * Removes the entry at the specified location.
+     *
+     * @param pos the location of the entry to remove
+     * @throws BoundaryViolationException if pos does not hold an entry
+     */
+    public void remove(int pos) throws BoundaryViolationException {
+        if (!slots.contains(pos)) {
+            throw new BoundaryViolationException();
+        }
+        slots.unlink(pos);
+    }
+
+    /**
+     * Removes all of the specified entries, which must be distinct and in the
+     * queue, unlinking each in constant time.
+     *
+     * @param entries the entries to remove
+     * @throws NullPointerException if entries or any entry is null
+     * @throws BoundaryViolationException if an entry is not at its reported location
+     */
+    public void removeAll(Collection<? extends E> entries) throws NullPointerException, BoundaryViolationException {
+        for (E e : entries) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            int pos = locator.get(e);
+            if (!slots.contains(pos) || slots.get(pos) != e) {
+                throw new BoundaryViolationException();
+            }
+        }
+        for (E e : entries) {
+            slots.unlink(locator.get(e));
+        }
+    }
+
+    /**
+     * Removes every entry that satisfies filter, walking the list in linear
+     * time.
+     */
+    public boolean removeIf(Predicate<? super E> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException();
+        }
+        int before = size();
+        int slot = slots.head(0);
+        while (slot != 0) {
+            int next = slots.next(slot);
+            if (filter.test(slots.get(slot))) {
+                slots.unlink(slot);
+            }
+            slot = next;
+        }
+        return size() < before;
+    }
+
+    /**
+     * Removes the first entry in the queue.
+     */
+    public E poll() {
+        if (isEmpty()) {
+            return null;
+        }
+        return slots.unlink(slots.head(0));
+    }
+
+    /**
+     * Returns but does not remove the first entry in the queue.
+     */
+    public E peek() {
+        if (isEmpty()) {
+            return null;
+        }
+        return slots.get(slots.head(0));
+    }
+
+    /**
+     * Returns the entries in the order in which repeated polls would return
+     * them, walking the list in linear time.
+     */
+    public List<E> toList() {
+        List<E> list = new ArrayList<>(size());
+        for (int slot = slots.head(0); slot != 0; slot = slots.next(slot)) {
+            list.add(slots.get(slot));
+        }
+        return list;
+    }
+
+    /**
+     * Visits the entries in order, walking the list in time linear in the
+     * entries visited.
+     */
+    public void forEachInOrder(Predicate<? super E> visitor) throws NullPointerException {
+        if (visitor == null) {
+            throw new NullPointerException();
+        }
+        for (int slot = slots.head(0); slot != 0; slot = slots.next(slot)) {
+            if (!visitor.test(slots.get(slot))) {
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        slots.clear();
+    }
+
+    public boolean isEmpty() {
+        return slots.isEmpty(0);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+}
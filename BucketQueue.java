@@ -0,0 +1,267 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Adaptable priority queue for entries with small positive integer keys,
+ * using one FIFO list per key and a bitmap of non-empty keys.  Offer, poll
+ * and remove all take constant time, and entries with equal keys are
+ * returned in the order in which they were added.  The location reported
+ * through the Locator is the slot holding the entry.
+ *
+ * @param <E> The entry type.
+ */
+public class BucketQueue<E> implements AdaptablePriorityQueue<E> {
+
+    public static final int MAX_LEVELS = 64; //one bit per level in the bitmap
+
+    private final LinkedSlots<E> slots; //one list per level
+    private final KeyExtractor<E> key; //to find the level of each entry
+    private final Locator<E> locator; //to locate the entries within the queue
+    private final int levels;
+    private long nonEmpty; //bit k-1 is set if level k holds entries
+
+    /**
+     * Constructor
+     * @param key used to find the level of the entries, from 1 to levels
+     * @param locator used to locate the entries in the queue
+     * @param levels number of levels, at most MAX_LEVELS
+     * @throws NullPointerException if key or locator parameters are null
+     * @throws IllegalArgumentException if levels is out of range
+     */
+    public BucketQueue(KeyExtractor<E> key, Locator<E> locator, int levels) throws NullPointerException {
+        if (key == null || locator == null) {
+            throw new NullPointerException();
+        }
+        if (levels < 1 || levels > MAX_LEVELS) {
+            throw new IllegalArgumentException("levels out of range");
+        }
+        slots = new LinkedSlots<>(levels);
+        this.key = key;
+        this.locator = locator;
+        this.levels = levels;
+    }
+
+    /**
+     * @param e the entry to test
+     * @return true if the key of e falls within the levels of this queue
+     */
+    public boolean accepts(E e) {
+        long k = key.getKey(e);
+        return k >= 1 && k <= levels;
+    }
+
+    /**
+     * @param entries the entries to test
+     * @return true if the keys of all the entries fall within the levels of this queue
+     */
+    public boolean acceptsAll(Collection<? extends E> entries) {
+        for (E e : entries) {
+            if (!accepts(e)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the specified entry into this priority queue.
+     *
+     * @param e the entry to insert
+     * @throws NullPointerException if parameter e is null
+     * @throws IllegalArgumentException if the key of e is out of range
+     */
+    public void offer(E e) throws NullPointerException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!accepts(e)) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        int level = (int) key.getKey(e) - 1;
+        locator.set(e, slots.append(level, e));
+        nonEmpty |= 1L << level;
+    }
+
+    /**
+     * Inserts all of the specified entries into this priority queue.
+     *
+     * @param entries the entries to insert
+     * @throws NullPointerException if entries or any entry is null
+     * @throws IllegalArgumentException if the key of any entry is out of range
+     */
+    public void addAll(Collection<? extends E> entries) throws NullPointerException {
+        for (E e : entries) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+        }
+        if (!acceptsAll(entries)) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        for (E e : entries) {
+            offer(e);
+        }
+    }
+
+    /**
+     * Moves an entry whose key has changed to the back of its new level, even
+     * if the level is unchanged.
+     *
+     * @param e the entry whose key has changed
+     * @throws NullPointerException if parameter e is null
+     * @throws BoundaryViolationException if e is not at its reported location
+     * @throws IllegalArgumentException if the new key of e is out of range
+     */
+    public void update(E e) throws NullPointerException, BoundaryViolationException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int pos = locator.get(e);
+        if (!slots.contains(pos) || slots.get(pos) != e) {
+            throw new BoundaryViolationException();
+        }
+        if (!accepts(e)) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        int level = (int) key.getKey(e) - 1;
+        int from = slots.listOf(pos);
+        slots.moveTo(pos, level);
+        nonEmpty |= 1L << level;
+        if (slots.isEmpty(from)) {
+            nonEmpty &= ~(1L << from);
+        }
+    }
+
+    /**
+     * Removes the entry at the specified location.
+     *
+     * @param pos the location of the entry to remove
+     * @throws BoundaryViolationException if pos does not hold an entry
+     */
+    public void remove(int pos) throws BoundaryViolationException {
+        if (!slots.contains(pos)) {
+            throw new BoundaryViolationException();
+        }
+        unlink(pos);
+    }
+
+    /**
+     * Removes all of the specified entries, which must be distinct and in the
+     * queue, unlinking each in constant time.
+     *
+     * @param entries the entries to remove
+     * @throws NullPointerException if entries or any entry is null
+     * @throws BoundaryViolationException if an entry is not at its reported location
+     */
+    public void removeAll(Collection<? extends E> entries) throws NullPointerException, BoundaryViolationException {
+        for (E e : entries) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            int pos = locator.get(e);
+            if (!slots.contains(pos) || slots.get(pos) != e) {
+                throw new BoundaryViolationException();
+            }
+        }
+        for (E e : entries) {
+            unlink(locator.get(e));
+        }
+    }
+
+    /**
+     * Removes every entry that satisfies filter, walking the levels in
+     * linear time.
+     */
+    public boolean removeIf(Predicate<? super E> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException();
+        }
+        int before = size();
+        for (long bits = nonEmpty; bits != 0; bits &= bits - 1) {
+            int slot = slots.head(Long.numberOfTrailingZeros(bits));
+            while (slot != 0) {
+                int next = slots.next(slot);
+                if (filter.test(slots.get(slot))) {
+                    unlink(slot);
+                }
+                slot = next;
+            }
+        }
+        return size() < before;
+    }
+
+    /**
+     * Removes the first entry in the priority queue.
+     */
+    public E poll() {
+        if (isEmpty()) {
+            return null;
+        }
+        return unlink(slots.head(Long.numberOfTrailingZeros(nonEmpty)));
+    }
+
+    /**
+     * Returns but does not remove the first entry in the priority queue.
+     */
+    public E peek() {
+        if (isEmpty()) {
+            return null;
+        }
+        return slots.get(slots.head(Long.numberOfTrailingZeros(nonEmpty)));
+    }
+
+    /**
+     * Returns the entries in the order in which repeated polls would return
+     * them, walking the levels from the first in linear time.
+     */
+    public List<E> toList() {
+        List<E> list = new ArrayList<>(size());
+        for (long bits = nonEmpty; bits != 0; bits &= bits - 1) {
+            for (int slot = slots.head(Long.numberOfTrailingZeros(bits)); slot != 0; slot = slots.next(slot)) {
+                list.add(slots.get(slot));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Visits the entries in order, walking the levels from the first in
+     * time linear in the entries visited.
+     */
+    public void forEachInOrder(Predicate<? super E> visitor) throws NullPointerException {
+        if (visitor == null) {
+            throw new NullPointerException();
+        }
+        for (long bits = nonEmpty; bits != 0; bits &= bits - 1) {
+            for (int slot = slots.head(Long.numberOfTrailingZeros(bits)); slot != 0; slot = slots.next(slot)) {
+                if (!visitor.test(slots.get(slot))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        slots.clear();
+        nonEmpty = 0;
+    }
+
+    public boolean isEmpty() {
+        return nonEmpty == 0;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    private E unlink(int slot) {
+        int level = slots.listOf(slot);
+        E e = slots.unlink(slot);
+        if (slots.isEmpty(level)) {
+            nonEmpty &= ~(1L << level);
+        }
+        return e;
+    }
+}
@@ -0,0 +1,420 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe PatientTriage using flat combining.  A thread calling add or
+ * remove publishes its request in a slot of its own and then tries to take
+ * the combiner lock; whichever thread holds the lock applies every pending
+ * request to both queues in one batch, so under contention one lock handoff
+ * serves many requests.  Other operations run under the combiner lock after
+ * the pending batch, except peekByPriority, peekByArrival, size and
+ * getCensus, which return the TriageCensus published behind a volatile field
+ * after each request is applied, without locking or allocating.  A histogram
+ * of batch sizes is kept.
+ * A thread claims a slot on its first add or remove and keeps it while it
+ * lives; the slot of a thread that has terminated is claimed again by the
+ * next thread to need one, so a recycled executor keeps combining.  Only
+ * threads beyond MAX_SLOTS alive at once take the lock directly.
+ */
+public class CombiningPatientTriage extends PatientTriage {
+
+    public static final int MAX_SLOTS = 64; //threads beyond this take the lock directly
+
+    private static final int IDLE = 0;
+    private static final int ADD = 1;
+    private static final int REMOVE = 2;
+
+    /**
+     * A request slot owned by one thread.
+     */
+    private static class Slot {
+        volatile int op = IDLE; //written last by the owner, cleared last by the combiner
+        final AtomicReference<Thread> owner; //claimed again by CAS once the owner has terminated
+        Patient patient;
+        long now;
+        Patient result;
+        Exception error;
+
+        Slot(Thread owner) {
+            this.owner = new AtomicReference<>(owner);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(MAX_SLOTS);
+    private final AtomicInteger registered = new AtomicInteger(); //slots below this have been created
+    private final ThreadLocal<Slot> slot = new ThreadLocal<>(); //slot claimed by each thread, unset if none
+    private final long[] batchSizes = new long[MAX_SLOTS + 1]; //number of batches of each size
+    private volatile TriageCensus census = TriageCensus.EMPTY; //published after each request
+
+    /**
+     * Constructor
+     *
+     * @param time Maximum wait time.  Patients waiting longer than this are seen first.
+     */
+    public CombiningPatientTriage(Time time) {
+        super(time);
+    }
+
+    public void add(Patient patient) throws NullPointerException {
+        if (patient == null) {
+            throw new NullPointerException();
+        }
+        Slot s = slot();
+        if (s == null) {
+            lock.lock();
+            try {
+                combine();
+                super.add(patient);
+            } finally {
+                publish();
+                lock.unlock();
+            }
+            return;
+        }
+        s.patient = patient;
+        s.op = ADD;
+        await(s);
+        Exception error = s.error;
+        s.error = null;
+        if (error != null) {
+            throw (RuntimeException) error;
+        }
+    }
+
+    public Patient remove(Time currentTime) throws NullPointerException, EmptyQueueException, BoundaryViolationException {
+        if (currentTime == null) {
+            throw new NullPointerException();
+        }
+        return remove(EpochMinute.of(currentTime));
+    }
+
+    public Patient remove(long now) throws EmptyQueueException, BoundaryViolationException {
+        Slot s = slot();
+        if (s == null) {
+            lock.lock();
+            try {
+                combine();
+                return super.remove(now);
+            } finally {
+                publish();
+                lock.unlock();
+            }
+        }
+        s.now = now;
+        s.op = REMOVE;
+        await(s);
+        Patient result = s.result;
+        Exception error = s.error;
+        s.result = null;
+        s.error = null;
+        if (error instanceof EmptyQueueException) {
+            throw (EmptyQueueException) error;
+        }
+        if (error instanceof BoundaryViolationException) {
+            throw (BoundaryViolationException) error;
+        }
+        if (error != null) {
+            throw (RuntimeException) error;
+        }
+        return result;
+    }
+
+    public void addAll(Collection<Patient> patients) throws NullPointerException {
+        lock.lock();
+        try {
+            combine();
+            super.addAll(patients);
+        } finally {
+            publish();
+            lock.unlock();
+        }
+    }
+
+    public int drainTo(Collection<? super Patient> c, long now, int max) throws NullPointerException, BoundaryViolationException {
+        lock.lock();
+        try {
+            combine();
+            return super.drainTo(c, now, max);
+        } finally {
+            publish();
+            lock.unlock();
+        }
+    }
+
+    public void reprioritize(Patient patient, int newPriority) throws NullPointerException, BoundaryViolationException {
+        lock.lock();
+        try {
+            combine();
+            super.reprioritize(patient, newPriority);
+        } finally {
+            publish();
+            lock.unlock();
+        }
+    }
+
+    public Patient cancel(int patientId) {
+        lock.lock();
+        try {
+            combine();
+            return super.cancel(patientId);
+        } finally {
+            publish();
+            lock.unlock();
+        }
+    }
+
+    public Patient find(int patientId) {
+        lock.lock();
+        try {
+            combine();
+            return super.find(patientId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Patient peekByPriority() {
+        return census.peekByPriority();
+    }
+
+    public Patient peekByArrival() {
+        return census.peekByArrival();
+    }
+
+    public TriageCensus getCensus() {
+        return census;
+    }
+
+    public List<Patient> topK(int k) throws BoundaryViolationException {
+        lock.lock();
+        try {
+            combine();
+            return super.topK(k);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<Patient> overdue(long now) {
+        lock.lock();
+        try {
+            combine();
+            return super.overdue(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long nextDeadline() {
+        lock.lock();
+        try {
+            combine();
+            return super.nextDeadline();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return census.size();
+    }
+
+    public Time getMaxWait() {
+        lock.lock();
+        try {
+            return super.getMaxWait();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxWaitMinutes() {
+        lock.lock();
+        try {
+            return super.getMaxWaitMinutes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            combine();
+            super.clear();
+        } finally {
+            publish();
+            lock.unlock();
+        }
+    }
+
+    public int getStaleCount() {
+        lock.lock();
+        try {
+            combine();
+            return super.getStaleCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public TriageMetrics getMetrics() {
+        lock.lock();
+        try {
+            return super.getMetrics();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setMetrics(TriageMetrics metrics) throws NullPointerException {
+        lock.lock();
+        try {
+            combine();
+            super.setMetrics(metrics);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setMaxWait(Time time) throws NullPointerException {
+        lock.lock();
+        try {
+            combine();
+            super.setMaxWait(time);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setMaxWait(long minutes) throws BoundaryViolationException {
+        lock.lock();
+        try {
+            combine();
+            super.setMaxWait(minutes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of combining passes that applied each batch size, indexed
+     * by batch size
+     */
+    public long[] getBatchSizeHistogram() {
+        lock.lock();
+        try {
+            return batchSizes.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the slot of the calling thread, claiming one on first use, or
+     * null if every slot belongs to a live thread
+     */
+    private Slot slot() {
+        Slot s = slot.get();
+        if (s == null) {
+            s = claim();
+            if (s != null) {
+                slot.set(s);
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Claims a slot for the calling thread: a slot not yet created, or one
+     * whose owner has terminated with no request pending.
+     *
+     * @return the slot claimed, or null if every slot belongs to a live thread
+     */
+    private Slot claim() {
+        Thread me = Thread.currentThread();
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            Slot s = slots.get(i);
+            if (s == null) {
+                s = new Slot(me);
+                if (slots.compareAndSet(i, null, s)) {
+                    registered.accumulateAndGet(i + 1, Math::max);
+                    return s;
+                }
+                s = slots.get(i);
+            }
+            Thread owner = s.owner.get();
+            if (!owner.isAlive() && s.op == IDLE && s.owner.compareAndSet(owner, me)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits until the request in s has been applied, combining whenever the
+     * lock is free.
+     */
+    private void await(Slot s) {
+        while (true) {
+            if (lock.tryLock()) {
+                try {
+                    combine();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (s.op == IDLE) {
+                return;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Applies every pending request.  Called holding the lock.
+     */
+    private void combine() {
+        int batch = 0;
+        int n = registered.get();
+        for (int i = 0; i < n; i++) {
+            Slot s = slots.get(i);
+            if (s == null || s.op == IDLE) {
+                continue;
+            }
+            try {
+                if (s.op == ADD) {
+                    super.add(s.patient);
+                } else {
+                    s.result = super.remove(s.now);
+                }
+            } catch (Exception ex) {
+                s.error = ex;
+            }
+            publish(); //before the requester sees its request done
+            s.patient = null;
+            s.op = IDLE;
+            batch++;
+        }
+        if (batch > 0) {
+            batchSizes[batch]++;
+        }
+    }
+
+    /**
+     * Publishes a new census if the heads or size have changed.  Called
+     * holding the lock.
+     */
+    private void publish() {
+        Patient next = super.peekByPriority();
+        Patient first = super.peekByArrival();
+        int size = super.size();
+        if (!census.shows(next, first, size)) {
+            census = new TriageCensus(next, first, size);
+        }
+    }
+}
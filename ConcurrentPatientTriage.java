@@ -0,0 +1,258 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe PatientTriage for several intake desks and treating physicians
+ * working in parallel.  Every mutation updates the priority and arrival time
+ * queues together, so mutations hold the write lock of a StampedLock for one
+ * logical step; queries such as getMaxWait use optimistic reads and do not
+ * block writers.  Before releasing the write lock each mutation publishes a
+ * TriageCensus of the heads and size behind a volatile field, which
+ * peekByPriority, peekByArrival, size and getCensus return without locking
+ * or allocating, so waiting-room displays may poll them as often as they
+ * like.
+ */
+public class ConcurrentPatientTriage extends PatientTriage {
+
+    private final StampedLock lock = new StampedLock();
+    private volatile TriageCensus census = TriageCensus.EMPTY; //published by each mutation
+
+    /**
+     * Constructor
+     *
+     * @param time Maximum wait time.  Patients waiting longer than this are seen first.
+     */
+    public ConcurrentPatientTriage(Time time) {
+        super(time);
+    }
+
+    public void add(Patient patient) throws NullPointerException {
+        long stamp = lock.writeLock();
+        try {
+            super.add(patient);
+        } finally {
+            publish();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void addAll(Collection<Patient> patients) throws NullPointerException {
+        long stamp = lock.writeLock();
+        try {
+            super.addAll(patients);
+        } finally {
+            publish();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void reprioritize(Patient patient, int newPriority) throws NullPointerException, BoundaryViolationException {
+        long stamp = lock.writeLock();
+        try {
+            super.reprioritize(patient, newPriority);
+        } finally {
+            publish();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Patient remove(Time currentTime) throws NullPointerException, EmptyQueueException, BoundaryViolationException {
+        long stamp = lock.writeLock();
+        try {
+            return super.remove(currentTime);
+        } finally {
+            publish();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Patient cancel(int patientId) {
+        long stamp = lock.writeLock();
+        try {
+            return super.cancel(patientId);
+        } finally {
+            publish();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Patient find(int patientId) {
+        long stamp = lock.readLock();
+        try {
+            return super.find(patientId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Patient peekByPriority() {
+        return census.peekByPriority();
+    }
+
+    public Patient peekByArrival() {
+        return census.peekByArrival();
+    }
+
+    public TriageCensus getCensus() {
+        return census;
+    }
+
+    public List<Patient> topK(int k) throws BoundaryViolationException {
+        long stamp = lock.readLock();
+        try {
+            return super.topK(k);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<Patient> overdue(long now) {
+        long stamp = lock.readLock();
+        try {
+            return super.overdue(now);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Patient remove(long now) throws EmptyQueueException, BoundaryViolationException {
+        long stamp = lock.writeLock();
+        try {
+            return super.remove(now);
+        } finally {
+            publish();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long nextDeadline() {
+        long stamp = lock.readLock();
+        try {
+            return super.nextDeadline();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int drainTo(Collection<? super Patient> c, long now, int max) throws NullPointerException, BoundaryViolationException {
+        long stamp = lock.writeLock();
+        try {
+            return super.drainTo(c, now, max);
+        } finally {
+            publish();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return census.size();
+    }
+
+    public Time getMaxWait() {
+        long stamp = lock.tryOptimisticRead();
+        Time maxWait = super.getMaxWait();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                maxWait = super.getMaxWait();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return maxWait;
+    }
+
+    public long getMaxWaitMinutes() {
+        long stamp = lock.tryOptimisticRead();
+        long maxWait = super.getMaxWaitMinutes();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                maxWait = super.getMaxWaitMinutes();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return maxWait;
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            super.clear();
+        } finally {
+            publish();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int getStaleCount() {
+        long stamp = lock.tryOptimisticRead();
+        int stale = super.getStaleCount();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                stale = super.getStaleCount();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return stale;
+    }
+
+    public TriageMetrics getMetrics() {
+        long stamp = lock.tryOptimisticRead();
+        TriageMetrics metrics = super.getMetrics();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                metrics = super.getMetrics();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return metrics;
+    }
+
+    public void setMetrics(TriageMetrics metrics) throws NullPointerException {
+        long stamp = lock.writeLock();
+        try {
+            super.setMetrics(metrics);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void setMaxWait(Time time) throws NullPointerException {
+        long stamp = lock.writeLock();
+        try {
+            super.setMaxWait(time);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void setMaxWait(long minutes) throws BoundaryViolationException {
+        long stamp = lock.writeLock();
+        try {
+            super.setMaxWait(minutes);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Publishes a new census if the heads or size have changed.  Called
+     * holding the write lock.
+     */
+    private void publish() {
+        Patient next = super.peekByPriority();
+        Patient first = super.peekByArrival();
+        int size = super.size();
+        if (!census.shows(next, first, size)) {
+            census = new TriageCensus(next, first, size);
+        }
+    }
+}
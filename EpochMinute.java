@@ -0,0 +1,66 @@
+package A2Q2;
+
+/**
+ * Compact timestamps as a primitive long count of minutes since the start of
+ * day 0.  Unlike Time they run past midnight and can hold waits longer than
+ * 24 hours, and comparing them or taking the time elapsed between them is
+ * plain arithmetic, with no allocation.  A Time converts to the matching
+ * minute of day 0.
+ */
+public final class EpochMinute {
+
+    public static final long MINUTES_PER_DAY = 24 * 60;
+
+    private EpochMinute() {
+    }
+
+    /**
+     * @param day day number, from 0
+     * @param hour hour of day
+     * @param minute minute of hour
+     * @return the timestamp
+     * @throws BoundaryViolationException if any field is out of range
+     */
+    public static long of(int day, int hour, int minute) throws BoundaryViolationException {
+        if (day < 0) {
+            throw new BoundaryViolationException("Day out of range");
+        }
+        if (hour < 0 || hour > 23) {
+            throw new BoundaryViolationException("Hour out of range");
+        }
+        if (minute < 0 || minute > 59) {
+            throw new BoundaryViolationException("Minute out of range");
+        }
+        return day * MINUTES_PER_DAY + hour * 60 + minute;
+    }
+
+    /**
+     * @param time time of day
+     * @return the timestamp of time on day 0
+     * @throws NullPointerException if time is null
+     */
+    public static long of(Time time) throws NullPointerException {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * @param epochMinute a non-negative timestamp
+     * @return the time of day of the timestamp
+     */
+    public static Time toTime(long epochMinute) {
+        int minuteOfDay = (int) (epochMinute % MINUTES_PER_DAY);
+        try {
+            return new Time(minuteOfDay / 60, minuteOfDay % 60);
+        } catch (BoundaryViolationException ex) {
+            throw new IllegalStateException(ex); //cannot happen: the fields are in range
+        }
+    }
+
+    /**
+     * @param epochMinute a non-negative timestamp
+     * @return the timestamp as day and time of day, e.g. "2+7:05"
+     */
+    public static String toString(long epochMinute) {
+        return (epochMinute / MINUTES_PER_DAY) + "+" + toTime(epochMinute).toString();
+    }
+}
@@ -0,0 +1,85 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Binary min-heap of int locations, for walking a heap-ordered queue in
+ * order without removing anything from it: the frontier holds the
+ * locations whose parents have been visited, so visiting k entries of a
+ * heap with d children per node costs O(k d log(k d)) whatever the size of
+ * the queue.  Sifting moves a hole, and nothing is allocated once the array
+ * has grown to the width of the walk.
+ */
+final class Frontier {
+
+    /**
+     * Orders the locations of a queue.
+     */
+    interface Order {
+        /**
+         * @return true if the entry at location a comes before the entry at b
+         */
+        boolean before(int a, int b);
+    }
+
+    private int[] locations = new int[16]; //the min heap, from index 1
+    private int size;
+    private final Order order;
+
+    /**
+     * Constructor
+     * @param order used to order the locations
+     * @throws NullPointerException if order is null
+     */
+    Frontier(Order order) throws NullPointerException {
+        if (order == null) {
+            throw new NullPointerException();
+        }
+        this.order = order;
+    }
+
+    /**
+     * Adds a location to the frontier.
+     */
+    void offer(int location) {
+        if (++size == locations.length) {
+            locations = Arrays.copyOf(locations, 2 * locations.length);
+        }
+        int pos = size;
+        while (pos > 1 && order.before(location, locations[pos >>> 1])) {
+            locations[pos] = locations[pos >>> 1];
+            pos >>>= 1;
+        }
+        locations[pos] = location;
+    }
+
+    /**
+     * @return the first location, removed from the frontier, or 0 if the
+     * frontier is empty
+     */
+    int poll() {
+        if (size == 0) {
+            return 0;
+        }
+        int first = locations[1];
+        int last = locations[size--];
+        int pos = 1;
+        int child;
+        while ((child = pos << 1) <= size) {
+            if (child < size && order.before(locations[child + 1], locations[child])) {
+                child++;
+            }
+            if (!order.before(locations[child], last)) {
+                break;
+            }
+            locations[pos] = locations[child];
+            pos = child;
+        }
+        locations[pos] = last;
+        return first;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,134 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Histogram of non-negative long values with log-linear buckets, in the
+ * style of HdrHistogram: each power of two is split into SUB_BUCKETS equal
+ * buckets, so every recorded value is known to within about 3% over the
+ * whole range of long.  Recording is a few shifts and an array increment and
+ * allocates nothing.  Not thread-safe.
+ */
+public class Histogram {
+
+    private static final int SUB_BITS = 5;
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS; //enough for Long.MAX_VALUE
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Records a value.  Negative values are recorded as 0.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * @return number of values recorded
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return largest value recorded, or 0 if none
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return mean of the values recorded, or 0 if none
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the largest value of the bucket holding the given percentile,
+     * but no more than the largest value recorded, or 0 if none
+     * @throws IllegalArgumentException if percentile is out of range
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile out of range");
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(max, highest(b));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Adds the values recorded in another histogram to this one.
+     *
+     * @param other the histogram to add
+     * @throws NullPointerException if other is null
+     */
+    public void add(Histogram other) throws NullPointerException {
+        for (int b = 0; b < counts.length; b++) {
+            counts[b] += other.counts[b];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public String toString() {
+        return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d p99.9=%d max=%d", count, getMean(),
+                getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99),
+                getValueAtPercentile(99.9), max);
+    }
+
+    /**
+     * @return the bucket of a value: values below SUB_BUCKETS have a bucket
+     * each, and each later power of two has SUB_BUCKETS buckets
+     */
+    private static int bucket(long value) {
+        int exponent = 63 - Long.numberOfLeadingZeros(value | 1);
+        if (exponent < SUB_BITS) {
+            return (int) value;
+        }
+        int shift = exponent - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value in bucket b
+     */
+    private static long highest(int b) {
+        if (b < SUB_BUCKETS) {
+            return b;
+        }
+        int shift = (b >>> SUB_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (b & (SUB_BUCKETS - 1))) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+}
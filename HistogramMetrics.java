@@ -0,0 +1,134 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * TriageMetrics that keep counters and Histograms: latency of add and
+ * remove in nanoseconds, depth of the waiting room, sift lengths, how often
+ * patients are taken because they are overdue rather than by priority, and
+ * the time each patient waited, in minutes, for each priority.  Recording
+ * allocates nothing except the first time a priority is seen.  Not
+ * thread-safe: give each triage its own, and read them while it is quiet, or
+ * accept figures that are slightly out of date.
+ */
+public class HistogramMetrics implements TriageMetrics {
+
+    private final Histogram addNanos = new Histogram();
+    private final Histogram removeNanos = new Histogram();
+    private final Histogram depths = new Histogram();
+    private final Histogram addSifts = new Histogram();
+    private final Histogram removeSifts = new Histogram();
+    private final IntMap<Histogram> waits = new IntMap<>(); //wait in minutes, by priority
+    private int[] priorities = new int[8]; //priorities seen, in order first seen
+    private int priorityCount;
+    private long overdue; //patients taken in order of arrival
+    private long byPriority; //patients taken in priority order
+
+    public void added(Patient patient, long nanos, int depth, long sifts) {
+        addNanos.record(nanos);
+        depths.record(depth);
+        addSifts.record(sifts);
+    }
+
+    public void removed(Patient patient, long now, boolean overdue, long nanos, int depth, long sifts) {
+        removeNanos.record(nanos);
+        depths.record(depth);
+        removeSifts.record(sifts);
+        if (overdue) {
+            this.overdue++;
+        } else {
+            byPriority++;
+        }
+        Histogram waited = waits.get(patient.getPriority());
+        if (waited == null) {
+            waited = new Histogram();
+            waits.put(patient.getPriority(), waited);
+            if (priorityCount == priorities.length) {
+                priorities = Arrays.copyOf(priorities, 2 * priorityCount);
+            }
+            priorities[priorityCount++] = patient.getPriority();
+        }
+        waited.record(now - patient.getArrival());
+    }
+
+    /**
+     * @return latency of add, in nanoseconds
+     */
+    public Histogram getAddNanos() {
+        return addNanos;
+    }
+
+    /**
+     * @return latency of remove, in nanoseconds
+     */
+    public Histogram getRemoveNanos() {
+        return removeNanos;
+    }
+
+    /**
+     * @return number of patients waiting after each add and remove
+     */
+    public Histogram getDepths() {
+        return depths;
+    }
+
+    /**
+     * @return levels moved in the heaps by each add
+     */
+    public Histogram getAddSifts() {
+        return addSifts;
+    }
+
+    /**
+     * @return levels moved in the heaps by each remove
+     */
+    public Histogram getRemoveSifts() {
+        return removeSifts;
+    }
+
+    /**
+     * @return number of patients taken because they had waited longer than maxWait
+     */
+    public long getOverdueCount() {
+        return overdue;
+    }
+
+    /**
+     * @return number of patients taken in priority order
+     */
+    public long getPriorityCount() {
+        return byPriority;
+    }
+
+    /**
+     * @return the priorities of the patients removed so far, in increasing order
+     */
+    public int[] getPriorities() {
+        int[] seen = Arrays.copyOf(priorities, priorityCount);
+        Arrays.sort(seen);
+        return seen;
+    }
+
+    /**
+     * @param priority a priority
+     * @return minutes waited by the patients of that priority removed so far,
+     * or null if there were none
+     */
+    public Histogram getWaitMinutes(int priority) {
+        return waits.get(priority);
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("add ns      ").append(addNanos).append('\n');
+        s.append("remove ns   ").append(removeNanos).append('\n');
+        s.append("depth       ").append(depths).append('\n');
+        s.append("add sifts   ").append(addSifts).append('\n');
+        s.append("remove sifts ").append(removeSifts).append('\n');
+        s.append("overdue ").append(overdue).append(", by priority ").append(byPriority).append('\n');
+        for (int priority : getPriorities()) {
+            s.append("wait min p").append(priority).append(' ').append(waits.get(priority)).append('\n');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,204 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Binary min-heap of int record indexes, for queues whose entries live
+ * outside the Java heap.  The key and tie-breaker of each record are cached
+ * in parallel long arrays, ties are broken by the smaller tie-breaker, and
+ * sifting moves a hole, so nothing is allocated once the arrays have grown
+ * to size.  The location of each record is reported through Positions, which
+ * may write it straight into the record.
+ */
+final class IntHeap {
+
+    /**
+     * Locates records within the heap.  Locations are positive integers.
+     */
+    interface Positions {
+        int get(int record);
+        void set(int record, int pos);
+    }
+
+    private int[] records = new int[16]; //the min heap, from index 1
+    private long[] keys = new long[16]; //key of the record at each index
+    private long[] ties = new long[16]; //tie-breaker of the record at each index
+    private int size;
+    private final Positions positions;
+
+    /**
+     * Constructor
+     * @param positions used to locate the records in the heap
+     * @throws NullPointerException if positions is null
+     */
+    IntHeap(Positions positions) throws NullPointerException {
+        if (positions == null) {
+            throw new NullPointerException();
+        }
+        this.positions = positions;
+    }
+
+    /**
+     * Inserts a record.
+     */
+    void offer(int record, long key, long tie) {
+        grow(size + 1);
+        upheap(++size, record, key, tie);
+    }
+
+    /**
+     * Moves the record at pos after its key or tie-breaker has changed.
+     *
+     * @throws BoundaryViolationException if pos is out of range
+     */
+    void update(int pos, long key, long tie) throws BoundaryViolationException {
+        if (pos < 1 || pos > size) {
+            throw new BoundaryViolationException();
+        }
+        if (before(key, tie, pos)) {
+            upheap(pos, records[pos], key, tie);
+        } else {
+            downheap(pos, records[pos], key, tie);
+        }
+    }
+
+    /**
+     * Removes the record at pos.
+     *
+     * @throws BoundaryViolationException if pos is out of range
+     */
+    void remove(int pos) throws BoundaryViolationException {
+        if (pos < 1 || pos > size) {
+            throw new BoundaryViolationException();
+        }
+        int last = records[size];
+        long lastKey = keys[size];
+        long lastTie = ties[size];
+        size--;
+        if (pos <= size) {
+            if (pos > 1 && before(lastKey, lastTie, pos >>> 1)) {
+                upheap(pos, last, lastKey, lastTie);
+            } else {
+                downheap(pos, last, lastKey, lastTie);
+            }
+        }
+    }
+
+    /**
+     * @return the record at location pos
+     */
+    int get(int pos) {
+        return records[pos];
+    }
+
+    /**
+     * @return the first record, or 0 if the heap is empty
+     */
+    int peek() {
+        return size == 0 ? 0 : records[1];
+    }
+
+    /**
+     * @return the key of the first record; the heap must not be empty
+     */
+    long peekKey() {
+        return keys[1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Refills the heap with records whose locations were saved with them,
+     * e.g. when reopening a mapped file, putting each back at its saved
+     * location in linear time.  If the saved locations do not form a heap,
+     * as after a crash in the middle of a sift, the heap is rebuilt
+     * bottom-up instead.
+     *
+     * @param recs the records, with their keys and tie-breakers
+     * @param n number of records
+     */
+    void restore(int[] recs, long[] ks, long[] ts, int n) {
+        grow(n);
+        Arrays.fill(records, 0, n + 1, 0);
+        size = n;
+        boolean placed = true;
+        for (int i = 0; i < n && placed; i++) {
+            int pos = positions.get(recs[i]);
+            placed = pos >= 1 && pos <= n && records[pos] == 0;
+            if (placed) {
+                records[pos] = recs[i];
+                keys[pos] = ks[i];
+                ties[pos] = ts[i];
+            }
+        }
+        for (int pos = 2; pos <= n && placed; pos++) {
+            placed = !before(keys[pos], ties[pos], pos >>> 1);
+        }
+        if (!placed) {
+            for (int i = 0; i < n; i++) {
+                place(i + 1, recs[i], ks[i], ts[i]);
+            }
+            for (int pos = n >>> 1; pos >= 1; pos--) {
+                downheap(pos, records[pos], keys[pos], ties[pos]);
+            }
+        }
+    }
+
+    /**
+     * @return true if key k with tie-breaker t comes before the record at pos
+     */
+    private boolean before(long k, long t, int pos) {
+        return k < keys[pos] || (k == keys[pos] && t < ties[pos]);
+    }
+
+    /**
+     * Moves the hole at pos upward until the record can be placed in it.
+     */
+    private void upheap(int pos, int record, long k, long t) {
+        while (pos > 1) {
+            int parent = pos >>> 1;
+            if (!before(k, t, parent)) {
+                break;
+            }
+            place(pos, records[parent], keys[parent], ties[parent]);
+            pos = parent;
+        }
+        place(pos, record, k, t);
+    }
+
+    /**
+     * Moves the hole at pos downward until the record can be placed in it.
+     */
+    private void downheap(int pos, int record, long k, long t) {
+        int child;
+        while ((child = pos << 1) <= size) {
+            if (child < size && before(keys[child + 1], ties[child + 1], child)) {
+                child++;
+            }
+            if (before(k, t, child)) {
+                break;
+            }
+            place(pos, records[child], keys[child], ties[child]);
+            pos = child;
+        }
+        place(pos, record, k, t);
+    }
+
+    private void place(int pos, int record, long k, long t) {
+        records[pos] = record;
+        keys[pos] = k;
+        ties[pos] = t;
+        positions.set(record, pos);
+    }
+
+    private void grow(int n) {
+        if (n >= records.length) {
+            int length = Math.max(n + 1, 2 * records.length);
+            records = Arrays.copyOf(records, length);
+            keys = Arrays.copyOf(keys, length);
+            ties = Arrays.copyOf(ties, length);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Map from int keys to values by open addressing with linear probing, so that
+ * lookups by patient ID box nothing and put, get and remove allocate nothing
+ * until the table grows.  Removal shifts later entries of the same probe run
+ * back rather than leaving tombstones.  Keys may be any int; null values are
+ * not allowed.
+ *
+ * @param <V> The value type.
+ */
+final class IntMap<V> {
+
+    private int[] keys = new int[16];
+    private Object[] values = new Object[16]; //null marks a free slot
+    private int size;
+
+    /**
+     * @return the value for key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps key to value, replacing any value it had.
+     *
+     * @return the value key had, or null if there was none
+     * @throws NullPointerException if value is null
+     */
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) throws NullPointerException {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length >>> 1) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the value for key.
+     *
+     * @return the value key had, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        V old = (V) values[i];
+        if (old != null) {
+            removeAt(i);
+        }
+        return old;
+    }
+
+    /**
+     * Removes the value for key if it is the given value, compared by
+     * identity.
+     *
+     * @return whether the value was removed
+     */
+    boolean remove(int key, V value) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null || values[i] != value) {
+            return false;
+        }
+        removeAt(i);
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Empties slot i, a full slot.
+     */
+    private void removeAt(int i) {
+        int mask = keys.length - 1;
+        size--;
+        //shift back later entries whose home slot is not between the hole and them
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = null;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[2 * oldKeys.length];
+        values = new Object[2 * oldValues.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != null) {
+                int i = hash(oldKeys[j]) & mask;
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Spreads consecutive IDs over the table (Fibonacci hashing).
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,462 @@
+package A2Q2;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * PatientTriage that survives a restart.  Every add, remove, re-triage,
+ * cancellation and change of maxWait is appended to a binary write-ahead log once it has been
+ * applied, and the waiting room is recovered by loading the last snapshot and
+ * replaying the log written after it.
+ * The log is written through a FileChannel in frames with a CRC32C checksum.
+ * Operations are buffered and forced to disk together, once groupSize of
+ * them are pending or on commit, so a crash loses at most the operations
+ * since the last commit; a torn frame at the end of the log is dropped on
+ * recovery.
+ * A snapshot lists the waiting patients in the order of the arrival queue,
+ * followed by the rank in that order of each patient in the priority
+ * queue.  Both queues are refilled from these orders in
+ * linear time, on heaps if they were on heaps before, so patients who tie
+ * are seen in the same order as before the restart.  A heap is listed in
+ * order of insertion or last re-triage rather than queue order, as it breaks
+ * ties by that order.  A snapshot is taken whenever the log outgrows the last snapshot,
+ * which starts a new log; each log records the generation of the snapshot it
+ * follows, so a log left over from before the last snapshot is ignored.
+ * Re-triage and cancellation are replayed by patient ID, so waiting
+ * patients should have distinct IDs.  Like PatientTriage, this class is not thread-safe.
+ */
+public class JournaledPatientTriage extends PatientTriage implements Closeable {
+
+    public static final String SNAPSHOT_FILE = "triage.snap";
+    public static final String LOG_FILE = "triage.wal";
+    public static final int DEFAULT_GROUP_SIZE = 256;
+
+    private static final int SNAPSHOT_MAGIC = 0x54534e50; //"TSNP"
+    private static final int LOG_MAGIC = 0x5457414c; //"TWAL"
+    private static final int LOG_HEADER = 20; //generation and maxWait the log starts from
+    private static final int FRAME_HEADER = 8; //length and checksum of each frame
+    private static final long MIN_COMPACT_BYTES = 4 << 20; //smallest log worth a snapshot
+
+    private static final byte ADD = 1; //id, priority, arrival
+    private static final byte REMOVE = 2; //now
+    private static final byte DRAIN = 3; //now, max
+    private static final byte REPRIORITIZE = 4; //id, priority
+    private static final byte MAX_WAIT = 5; //minutes
+    private static final byte CLEAR = 6;
+    private static final byte CANCEL = 7; //id
+
+    private final Path directory;
+    private final int groupSize; //operations forced to disk together
+    private final ByteBuffer frame = ByteBuffer.allocateDirect(1 << 16); //the frame being filled
+    private final CRC32C checksum = new CRC32C();
+    private FileChannel log;
+    private long generation; //generation of the last snapshot, 0 if none
+    private long logBytes; //length of the log on disk
+    private long snapshotBytes; //length of the last snapshot
+    private int pending; //operations in the frame
+
+    /**
+     * Constructor, recovering the waiting room saved in a directory
+     *
+     * @param time Maximum wait time, unless one was saved.  Patients waiting longer than this are seen first.
+     * @param directory holds the snapshot and log, and is created if missing
+     * @throws NullPointerException if given null time or directory
+     * @throws IOException if the directory cannot be read or written, or the
+     * snapshot is corrupt
+     */
+    public JournaledPatientTriage(Time time, Path directory) throws NullPointerException, IOException {
+        this(time, directory, DEFAULT_GROUP_SIZE);
+    }
+
+    /**
+     * Constructor, recovering the waiting room saved in a directory
+     *
+     * @param time Maximum wait time, unless one was saved.  Patients waiting longer than this are seen first.
+     * @param directory holds the snapshot and log, and is created if missing
+     * @param groupSize number of operations forced to disk together
+     * @throws NullPointerException if given null time or directory
+     * @throws IllegalArgumentException if groupSize is less than 1
+     * @throws IOException if the directory cannot be read or written, or the
+     * snapshot is corrupt
+     */
+    public JournaledPatientTriage(Time time, Path directory, int groupSize) throws NullPointerException, IOException {
+        super(time);
+        if (directory == null) {
+            throw new NullPointerException();
+        }
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("groupSize out of range");
+        }
+        this.directory = directory;
+        this.groupSize = groupSize;
+        frame.position(FRAME_HEADER);
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            load(snapshot);
+        }
+        long end = replay(directory.resolve(LOG_FILE));
+        if (end < 0) {
+            startLog();
+        } else {
+            log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.WRITE);
+            log.truncate(end); //drop a torn frame
+            log.position(end);
+            logBytes = end;
+        }
+    }
+
+    public void add(Patient patient) throws NullPointerException {
+        super.add(patient);
+        frame(17).put(ADD).putInt(patient.getID()).putInt(patient.getPriority()).putLong(patient.getArrival());
+        logged();
+    }
+
+    public void addAll(Collection<Patient> patients) throws NullPointerException {
+        super.addAll(patients);
+        for (Patient patient : patients) {
+            frame(17).put(ADD).putInt(patient.getID()).putInt(patient.getPriority()).putLong(patient.getArrival());
+            logged();
+        }
+    }
+
+    public void reprioritize(Patient patient, int newPriority) throws NullPointerException, BoundaryViolationException {
+        super.reprioritize(patient, newPriority);
+        frame(9).put(REPRIORITIZE).putInt(patient.getID()).putInt(newPriority);
+        logged();
+    }
+
+    public Patient cancel(int patientId) {
+        Patient patient = super.cancel(patientId);
+        if (patient != null) {
+            frame(5).put(CANCEL).putInt(patientId);
+            logged();
+        }
+        return patient;
+    }
+
+    public Patient remove(Time currentTime) throws NullPointerException, EmptyQueueException, BoundaryViolationException {
+        if (currentTime == null) {
+            throw new NullPointerException();
+        }
+        return remove(EpochMinute.of(currentTime));
+    }
+
+    public Patient remove(long now) throws EmptyQueueException, BoundaryViolationException {
+        Patient patient = super.remove(now);
+        frame(9).put(REMOVE).putLong(now);
+        logged();
+        return patient;
+    }
+
+    public int drainTo(Collection<? super Patient> c, long now, int max) throws NullPointerException, BoundaryViolationException {
+        int count = super.drainTo(c, now, max);
+        if (count > 0) {
+            frame(13).put(DRAIN).putLong(now).putInt(count);
+            logged();
+        }
+        return count;
+    }
+
+    public void clear() {
+        super.clear();
+        frame(1).put(CLEAR);
+        logged();
+    }
+
+    public void setMaxWait(Time time) throws NullPointerException {
+        super.setMaxWait(time);
+        frame(9).put(MAX_WAIT).putLong(getMaxWaitMinutes());
+        logged();
+    }
+
+    public void setMaxWait(long minutes) throws BoundaryViolationException {
+        super.setMaxWait(minutes);
+        frame(9).put(MAX_WAIT).putLong(minutes);
+        logged();
+    }
+
+    /**
+     * Forces the operations logged so far to disk.
+     *
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public void commit() {
+        try {
+            flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Saves the waiting room to a new snapshot and starts a new log, so that
+     * recovery no longer replays the operations logged so far.  Taking the
+     * snapshot lists both queues in order, in n log n time for heaps.
+     *
+     * @throws IOException if the snapshot or log cannot be written
+     */
+    public void snapshot() throws IOException {
+        flush();
+        List<Patient> byArrival = restoreOrder(false);
+        List<Patient> byPriority = restoreOrder(true);
+        //rank in arrival order of each patient; not indexed by arrival queue
+        //location, as a heap may hand out locations far above its size
+        Map<Patient, Integer> rank = new IdentityHashMap<>(2 * byArrival.size());
+        for (int i = 0; i < byArrival.size(); i++) {
+            rank.put(byArrival.get(i), i);
+        }
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        checksum.reset();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(SNAPSHOT_MAGIC).putLong(generation + 1).putLong(getMaxWaitMinutes()).putInt(byArrival.size())
+                    .put((byte) ((onHeap(true) ? 1 : 0) | (onHeap(false) ? 2 : 0)));
+            for (Patient patient : byArrival) {
+                if (buffer.remaining() < 16) {
+                    write(out, buffer);
+                }
+                buffer.putInt(patient.getID()).putInt(patient.getPriority()).putLong(patient.getArrival());
+            }
+            for (Patient patient : byPriority) {
+                if (buffer.remaining() < 4) {
+                    write(out, buffer);
+                }
+                buffer.putInt(rank.get(patient));
+            }
+            write(out, buffer);
+            buffer.putInt((int) checksum.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+            snapshotBytes = out.size();
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        generation++;
+        log.close();
+        startLog();
+    }
+
+    /**
+     * Forces the pending operations to disk and closes the log.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            log.close();
+        }
+    }
+
+    /**
+     * @param bytes length of the next record
+     * @return the frame, with room for the record
+     */
+    private ByteBuffer frame(int bytes) {
+        if (frame.remaining() < bytes) {
+            commit();
+        }
+        return frame;
+    }
+
+    /**
+     * Counts a record into the group, committing a full group and taking a
+     * snapshot once the log outgrows the last one.
+     */
+    private void logged() {
+        if (++pending < groupSize) {
+            return;
+        }
+        try {
+            flush();
+            if (logBytes > Math.max(MIN_COMPACT_BYTES, snapshotBytes)) {
+                snapshot();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes the frame to the log, if it holds any records, and forces it to disk.
+     */
+    private void flush() throws IOException {
+        int length = frame.position() - FRAME_HEADER;
+        if (length == 0) {
+            return;
+        }
+        frame.flip().position(FRAME_HEADER);
+        checksum.reset();
+        checksum.update(frame);
+        frame.putInt(0, length).putInt(4, (int) checksum.getValue()).position(0);
+        while (frame.hasRemaining()) {
+            log.write(frame);
+        }
+        log.force(false);
+        logBytes += FRAME_HEADER + length;
+        frame.clear().position(FRAME_HEADER);
+        pending = 0;
+    }
+
+    /**
+     * Writes out the buffered part of a snapshot, adding it to the checksum.
+     */
+    private void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Replaces the log with an empty one for the current generation, starting
+     * from the current maxWait.
+     */
+    private void startLog() throws IOException {
+        Path temp = directory.resolve(LOG_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER).putInt(LOG_MAGIC).putLong(generation).putLong(getMaxWaitMinutes());
+            header.flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            out.force(true);
+        }
+        Path path = Files.move(temp, directory.resolve(LOG_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log = FileChannel.open(path, StandardOpenOption.WRITE);
+        logBytes = log.size();
+        log.position(logBytes);
+    }
+
+    /**
+     * Refills the queues from a snapshot.
+     */
+    private void load(Path path) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        snapshotBytes = in.limit();
+        if (in.limit() < 29 || in.getInt(0) != SNAPSHOT_MAGIC) {
+            throw new IOException("not a triage snapshot: " + path);
+        }
+        checksum.reset();
+        checksum.update(in.slice(0, in.limit() - 4));
+        if (in.getInt(in.limit() - 4) != (int) checksum.getValue()) {
+            throw new IOException("corrupt triage snapshot: " + path);
+        }
+        in.position(4);
+        long snapshotGeneration = in.getLong();
+        long minutes = in.getLong();
+        int n = in.getInt();
+        byte heaps = in.get();
+        Patient[] byArrival = new Patient[n];
+        List<Patient> byPriority = new ArrayList<>(n);
+        try {
+            for (int i = 0; i < n; i++) {
+                byArrival[i] = new Patient(in.getInt(), in.getInt(), in.getLong());
+            }
+            for (int i = 0; i < n; i++) {
+                byPriority.add(byArrival[in.getInt()]);
+            }
+            super.setMaxWait(minutes);
+            restore(byPriority, (heaps & 1) != 0, Arrays.asList(byArrival), (heaps & 2) != 0);
+        } catch (BoundaryViolationException ex) {
+            throw new IOException("corrupt triage snapshot: " + path, ex);
+        }
+        generation = snapshotGeneration;
+    }
+
+    /**
+     * Replays the frames of the log that follows the snapshot, up to the
+     * first torn or corrupt frame.
+     *
+     * @return length of the valid part of the log, or -1 if there is no log
+     * for the current generation
+     */
+    private long replay(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return -1;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (in.limit() < LOG_HEADER || in.getInt(0) != LOG_MAGIC || in.getLong(4) != generation) {
+            return -1;
+        }
+        try {
+            super.setMaxWait(in.getLong(12));
+        } catch (BoundaryViolationException ex) {
+            throw new IOException("corrupt triage log: " + path, ex);
+        }
+        int end = LOG_HEADER;
+        while (in.limit() - end >= FRAME_HEADER) {
+            int length = in.getInt(end);
+            if (length <= 0 || length > in.limit() - end - FRAME_HEADER) {
+                break;
+            }
+            ByteBuffer records = in.slice(end + FRAME_HEADER, length);
+            checksum.reset();
+            checksum.update(records.duplicate());
+            if (in.getInt(end + 4) != (int) checksum.getValue()) {
+                break;
+            }
+            try {
+                while (records.hasRemaining()) {
+                    apply(records);
+                }
+            } catch (BoundaryViolationException | EmptyQueueException ex) {
+                throw new IOException("corrupt triage log: " + path, ex);
+            }
+            end += FRAME_HEADER + length;
+        }
+        return end;
+    }
+
+    /**
+     * Applies one logged operation, without logging it again.
+     */
+    private void apply(ByteBuffer records) throws IOException, BoundaryViolationException, EmptyQueueException {
+        byte op = records.get();
+        switch (op) {
+            case ADD:
+                super.add(new Patient(records.getInt(), records.getInt(), records.getLong()));
+                break;
+            case REMOVE:
+                super.remove(records.getLong());
+                break;
+            case DRAIN:
+                super.drainTo(new ArrayList<>(), records.getLong(), records.getInt());
+                break;
+            case REPRIORITIZE: {
+                Patient patient = super.find(records.getInt());
+                if (patient == null) {
+                    throw new IOException("re-triage of a patient not waiting");
+                }
+                super.reprioritize(patient, records.getInt());
+                break;
+            }
+            case CANCEL:
+                if (super.cancel(records.getInt()) == null) {
+                    throw new IOException("cancellation of a patient not waiting");
+                }
+                break;
+            case MAX_WAIT:
+                super.setMaxWait(records.getLong());
+                break;
+            case CLEAR:
+                super.clear();
+                break;
+            default:
+                throw new IOException("unknown operation in triage log: " + op);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package A2Q2;
+
+/**
+ * Interface for extracting a primitive ordering key from an entry.  Smaller
+ * keys come first.
+ */
+public interface KeyExtractor<E> {
+    public long getKey(E e);
+}
@@ -0,0 +1,442 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Adaptable priority queue keyed on primitive longs, using a d-ary min-heap
+ * of location-aware entries.  Entries, their keys and their insertion
+ * sequence numbers are kept in parallel arrays, keys and sequence numbers
+ * are compared directly rather than through a Comparator, and sifting moves
+ * a hole rather than swapping, so each level passed costs one array write
+ * per field and one locator call.  Offer, poll, update and remove allocate
+ * nothing once the arrays have grown to size.  Entries with equal keys are
+ * returned in the order in which they were added; an entry whose key is
+ * updated counts as added then.  The key of each entry is read when it is
+ * offered or updated.
+ *
+ * @param <E> The entry type.
+ */
+public class KeyedAPQ<E> implements AdaptablePriorityQueue<E> {
+
+    private Object[] entries = new Object[16]; //the min heap, from index 1
+    private long[] keys = new long[16]; //key of the entry at each node
+    private long[] seqs = new long[16]; //insertion sequence number of the entry at each node
+    private int size;
+    private long nextSeq; //sequence number of the next entry added
+    private long sifts; //levels moved by entries, for metrics
+    private final int arity; //number of children of each node
+    private final KeyExtractor<E> key; //to key the entries
+    private final Locator<E> locator; //to locate the entries within the queue
+
+    /**
+     * Constructor for a binary heap
+     * @param key used to key the entries
+     * @param locator used to locate the entries in the queue
+     * @throws NullPointerException if key or locator parameters are null
+     */
+    public KeyedAPQ(KeyExtractor<E> key, Locator<E> locator) throws NullPointerException {
+        this(key, locator, 2);
+    }
+
+    /**
+     * Constructor
+     * @param key used to key the entries
+     * @param locator used to locate the entries in the queue
+     * @param arity number of children of each node, e.g. 2, 4 or 8
+     * @throws NullPointerException if key or locator parameters are null
+     * @throws IllegalArgumentException if arity is less than 2
+     */
+    public KeyedAPQ(KeyExtractor<E> key, Locator<E> locator, int arity) throws NullPointerException {
+        if (key == null || locator == null) {
+            throw new NullPointerException();
+        }
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be at least 2");
+        }
+        this.key = key;
+        this.locator = locator;
+        this.arity = arity;
+    }
+
+    /**
+     * Inserts the specified entry into this priority queue.
+     *
+     * @param e the entry to insert
+     * @throws NullPointerException if parameter e is null
+     */
+    public void offer(E e) throws NullPointerException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        grow(size + 1);
+        upheap(++size, e, key.getKey(e), nextSeq++);
+    }
+
+    /**
+     * Inserts all of the specified entries into this priority queue.  Unless
+     * there are fewer new entries than queued ones, the entries are appended
+     * and the heap is rebuilt bottom-up (Floyd's method) in linear time.
+     *
+     * @param batch the entries to insert
+     * @throws NullPointerException if batch or any entry is null
+     */
+    public void addAll(Collection<? extends E> batch) throws NullPointerException {
+        for (E e : batch) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+        }
+        if (batch.size() < size) {
+            for (E e : batch) {
+                offer(e);
+            }
+            return;
+        }
+        grow(size + batch.size());
+        for (E e : batch) {
+            place(++size, e, key.getKey(e), nextSeq++);
+        }
+        heapify();
+    }
+
+    /**
+     * Restores the heap after the key of an entry has changed.  The entry
+     * takes the next insertion sequence number, so it goes behind every
+     * entry with an equal key.
+     *
+     * @param e the entry whose key has changed
+     * @throws NullPointerException if parameter e is null
+     * @throws BoundaryViolationException if e is not at its reported location
+     */
+    public void update(E e) throws NullPointerException, BoundaryViolationException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int pos = locator.get(e);
+        if (!holds(e, pos)) {
+            throw new BoundaryViolationException();
+        }
+        sift(pos, e, key.getKey(e), nextSeq++);
+    }
+
+    /**
+     * Removes the entry at the specified location, filling its node with
+     * the last entry.
+     *
+     * @param pos the location of the entry to remove
+     * @throws BoundaryViolationException if pos is out of range
+     */
+    public void remove(int pos) throws BoundaryViolationException {
+        if (pos < 1 || pos > size) {
+            throw new BoundaryViolationException();
+        }
+        E last = entry(size);
+        long lastKey = keys[size];
+        long lastSeq = seqs[size];
+        entries[size--] = null;
+        if (pos <= size) {
+            sift(pos, last, lastKey, lastSeq);
+        }
+    }
+
+    /**
+     * Removes all of the specified entries, which must be distinct and in the
+     * queue.  A few are removed one at a time; once that would cost more than
+     * rebuilding, the surviving nodes are compacted in one pass and the heap
+     * is rebuilt bottom-up in linear time.
+     *
+     * @param batch the entries to remove
+     * @throws NullPointerException if batch or any entry is null
+     * @throws BoundaryViolationException if an entry is not at its reported location
+     */
+    public void removeAll(Collection<? extends E> batch) throws NullPointerException, BoundaryViolationException {
+        for (E e : batch) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            if (!holds(e, locator.get(e))) {
+                throw new BoundaryViolationException();
+            }
+        }
+        if ((long) batch.size() * (32 - Integer.numberOfLeadingZeros(size)) <= size) {
+            for (E e : batch) {
+                remove(locator.get(e));
+            }
+            return;
+        }
+        for (E e : batch) {
+            entries[locator.get(e)] = null;
+        }
+        compact(null);
+    }
+
+    /**
+     * Removes every entry that satisfies filter, compacting the surviving
+     * nodes in one pass and rebuilding the heap bottom-up in linear time.
+     */
+    public boolean removeIf(Predicate<? super E> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException();
+        }
+        int before = size;
+        compact(filter);
+        return size < before;
+    }
+
+    /**
+     * Removes the first entry in the priority queue.
+     */
+    public E poll() {
+        if (isEmpty()) {
+            return null;
+        }
+        E first = entry(1);
+        E last = entry(size);
+        long lastKey = keys[size];
+        long lastSeq = seqs[size];
+        entries[size--] = null;
+        if (size > 0) {
+            downheap(1, last, lastKey, lastSeq);
+        }
+        return first;
+    }
+
+    /**
+     * Returns but does not remove the first entry in the priority queue.
+     */
+    public E peek() {
+        if (isEmpty()) {
+            return null;
+        }
+        return entry(1);
+    }
+
+    /**
+     * Returns the entries in the order in which repeated polls would return
+     * them, sorting the nodes in n log n time.
+     */
+    public List<E> toList() {
+        Integer[] order = nodes();
+        Arrays.sort(order, (a, b) -> keys[a] != keys[b] ? Long.compare(keys[a], keys[b]) : Long.compare(seqs[a], seqs[b]));
+        return entriesOf(order);
+    }
+
+    /**
+     * Visits the entries in order, walking the heap best first: each node
+     * visited puts its children on a frontier, so visiting k entries takes
+     * O(k log k) time for a fixed arity.  The heap is only read.
+     */
+    public void forEachInOrder(Predicate<? super E> visitor) throws NullPointerException {
+        if (visitor == null) {
+            throw new NullPointerException();
+        }
+        if (isEmpty()) {
+            return;
+        }
+        Frontier frontier = new Frontier(this::less);
+        frontier.offer(1);
+        while (!frontier.isEmpty()) {
+            int pos = frontier.poll();
+            if (!visitor.test(entry(pos))) {
+                return;
+            }
+            int last = Math.min(firstChild(pos) + arity - 1, size);
+            for (int c = firstChild(pos); c <= last; c++) {
+                frontier.offer(c);
+            }
+        }
+    }
+
+    /**
+     * Returns the entries in the order in which they were inserted or last
+     * updated, which decides how ties are broken.  Adding them in this order
+     * to an empty queue gives a queue that breaks ties as this one does.
+     *
+     * @return a new list of the entries, first inserted first
+     */
+    public List<E> toInsertionList() {
+        Integer[] order = nodes();
+        Arrays.sort(order, (a, b) -> Long.compare(seqs[a], seqs[b]));
+        return entriesOf(order);
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 1, size + 1, null);
+        size = 0;
+        nextSeq = 0;
+    }
+
+    public long getSiftCount() {
+        return sifts;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Puts e with key k and sequence number s in the hole at pos, moving it
+     * up or down as its neighbours require.
+     */
+    private void sift(int pos, E e, long k, long s) {
+        if (pos > 1 && before(k, s, parent(pos))) {
+            upheap(pos, e, k, s);
+        } else {
+            downheap(pos, e, k, s);
+        }
+    }
+
+    /**
+     * Moves the hole at pos upward until e with key k and sequence number s
+     * can be placed in it.
+     */
+    private void upheap(int pos, E e, long k, long s) {
+        while (pos > 1) {
+            int parent = parent(pos);
+            if (!before(k, s, parent)) {
+                break;
+            }
+            move(parent, pos);
+            pos = parent;
+        }
+        place(pos, e, k, s);
+    }
+
+    /**
+     * Moves the hole at pos downward until e with key k and sequence number
+     * s can be placed in it.
+     */
+    private void downheap(int pos, E e, long k, long s) {
+        int child;
+        while ((child = firstChild(pos)) <= size) {
+            int last = Math.min(child + arity - 1, size);
+            int min = child; //smallest child
+            for (int c = child + 1; c <= last; c++) {
+                if (less(c, min)) {
+                    min = c;
+                }
+            }
+            if (before(k, s, min)) {
+                break;
+            }
+            move(min, pos);
+            pos = min;
+        }
+        place(pos, e, k, s);
+    }
+
+    /**
+     * Restores the minheap property over the whole array, bottom-up
+     */
+    private void heapify() {
+        for (int pos = parent(size); pos >= 1 && size > 1; pos--) {
+            downheap(pos, entry(pos), keys[pos], seqs[pos]);
+        }
+    }
+
+    /**
+     * Drops the nodes emptied by removeAll, or whose entries satisfy filter,
+     * moving the rest down over them in order, and rebuilds the heap.
+     */
+    private void compact(Predicate<? super E> filter) {
+        int to = 1;
+        for (int from = 1; from <= size; from++) {
+            E e = entry(from);
+            if (e == null || filter != null && filter.test(e)) {
+                continue;
+            }
+            place(to++, e, keys[from], seqs[from]);
+        }
+        if (to == size + 1) {
+            return;
+        }
+        Arrays.fill(entries, to, size + 1, null);
+        size = to - 1;
+        heapify();
+    }
+
+    /**
+     * @return true if key k with sequence number s comes before the entry at pos
+     */
+    private boolean before(long k, long s, int pos) {
+        return k < keys[pos] || k == keys[pos] && s < seqs[pos];
+    }
+
+    /**
+     * @return true if the entry at node a comes before the entry at node b
+     */
+    private boolean less(int a, int b) {
+        return before(keys[a], seqs[a], b);
+    }
+
+    /**
+     * @return true if e is at location pos
+     */
+    private boolean holds(E e, int pos) {
+        return pos >= 1 && pos <= size && entries[pos] == e;
+    }
+
+    private int parent(int pos) {
+        return (pos - 2) / arity + 1;
+    }
+
+    private int firstChild(int pos) {
+        return arity * (pos - 1) + 2;
+    }
+
+    /**
+     * Moves the node at from into the hole at to.
+     */
+    private void move(int from, int to) {
+        place(to, entry(from), keys[from], seqs[from]);
+        sifts++;
+    }
+
+    private void place(int pos, E e, long k, long s) {
+        entries[pos] = e;
+        keys[pos] = k;
+        seqs[pos] = s;
+        locator.set(e, pos);
+    }
+
+    /**
+     * @return the nodes holding entries
+     */
+    private Integer[] nodes() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i + 1;
+        }
+        return order;
+    }
+
+    private List<E> entriesOf(Integer[] order) {
+        List<E> list = new ArrayList<>(order.length);
+        for (int pos : order) {
+            list.add(entry(pos));
+        }
+        return list;
+    }
+
+    /**
+     * Grows the arrays to hold n entries.
+     */
+    private void grow(int n) {
+        if (n >= entries.length) {
+            int capacity = Math.max(2 * entries.length, n + 1);
+            entries = Arrays.copyOf(entries, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            seqs = Arrays.copyOf(seqs, capacity);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E entry(int pos) {
+        return (E) entries[pos];
+    }
+}
@@ -0,0 +1,227 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * A pool of slots threaded into doubly-linked FIFO lists, stored in parallel
+ * arrays so that linking and unlinking allocate nothing once the pool has
+ * grown to size.  Slot numbers start at 1 so that they can serve as queue
+ * locations; 0 marks the end of a list.  The lists made at construction are
+ * kept for good; more can be added, and released once empty for reuse.
+ *
+ * @param <E> The entry type.
+ */
+class LinkedSlots<E> {
+
+    private Object[] entries = new Object[16]; //entry held by each slot, null if free
+    private int[] next = new int[16]; //next slot in the same list, or in the free list
+    private int[] prev = new int[16]; //previous slot in the same list
+    private int[] owner = new int[16]; //list holding each slot
+    private int[] heads;
+    private int[] tails; //last slot of each list, or next released list
+    private final int fixed; //lists made at construction, never released
+    private int lists; //lists below this have been handed out at least once
+    private int released; //first released list, 0 if none
+    private int free; //first free slot
+    private int top = 1; //slots below top have been handed out at least once
+    private int size;
+
+    /**
+     * @param lists number of lists made at construction, at least 1, so that
+     * list 0 is never released
+     */
+    LinkedSlots(int lists) {
+        heads = new int[lists];
+        tails = new int[lists];
+        fixed = lists;
+        this.lists = lists;
+    }
+
+    /**
+     * Adds an empty list, reusing one released earlier if there is one.
+     *
+     * @return the list added, numbered from the lists made at construction
+     */
+    int addList() {
+        int list;
+        if (released != 0) {
+            list = released;
+            released = tails[list];
+            tails[list] = 0;
+        } else {
+            if (lists == heads.length) {
+                heads = Arrays.copyOf(heads, 2 * heads.length);
+                tails = Arrays.copyOf(tails, 2 * tails.length);
+            }
+            list = lists++;
+        }
+        return list;
+    }
+
+    /**
+     * Releases an empty list added by addList, for reuse.
+     *
+     * @param list an empty list added by addList
+     */
+    void releaseList(int list) {
+        tails[list] = released;
+        released = list;
+    }
+
+    /**
+     * Appends an entry to the tail of a list.
+     *
+     * @param list the list to append to
+     * @param e the entry
+     * @return the slot now holding e
+     */
+    int append(int list, E e) {
+        int slot;
+        if (free != 0) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (top == entries.length) {
+                grow();
+            }
+            slot = top++;
+        }
+        entries[slot] = e;
+        owner[slot] = list;
+        next[slot] = 0;
+        prev[slot] = tails[list];
+        if (tails[list] == 0) {
+            heads[list] = slot;
+        } else {
+            next[tails[list]] = slot;
+        }
+        tails[list] = slot;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Unlinks a slot from its list and returns it to the pool.
+     *
+     * @param slot a slot in use
+     * @return the entry the slot held
+     */
+    E unlink(int slot) {
+        E e = get(slot);
+        int list = owner[slot];
+        if (prev[slot] == 0) {
+            heads[list] = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == 0) {
+            tails[list] = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        entries[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+        return e;
+    }
+
+    /**
+     * Moves a slot from its list to the tail of another, keeping the slot
+     * number and entry.
+     *
+     * @param slot a slot in use
+     * @param list the list to append it to
+     */
+    void moveTo(int slot, int list) {
+        int from = owner[slot];
+        if (prev[slot] == 0) {
+            heads[from] = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == 0) {
+            tails[from] = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        owner[slot] = list;
+        next[slot] = 0;
+        prev[slot] = tails[list];
+        if (tails[list] == 0) {
+            heads[list] = slot;
+        } else {
+            next[tails[list]] = slot;
+        }
+        tails[list] = slot;
+    }
+
+    /**
+     * @return true if slot is currently holding an entry
+     */
+    boolean contains(int slot) {
+        return slot > 0 && slot < top && entries[slot] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(int slot) {
+        return (E) entries[slot];
+    }
+
+    int listOf(int slot) {
+        return owner[slot];
+    }
+
+    /**
+     * @return the slot after slot in its list, or 0 at the tail
+     */
+    int next(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * @return the slot before slot in its list, or 0 at the head
+     */
+    int prev(int slot) {
+        return prev[slot];
+    }
+
+    int head(int list) {
+        return heads[list];
+    }
+
+    int tail(int list) {
+        return tails[list];
+    }
+
+    boolean isEmpty(int list) {
+        return heads[list] == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Empties every list and drops those added, keeping the pool; slots are
+     * handed out from 1 again.
+     */
+    void clear() {
+        Arrays.fill(entries, 1, top, null);
+        Arrays.fill(heads, 0);
+        Arrays.fill(tails, 0);
+        lists = fixed;
+        released = 0;
+        free = 0;
+        top = 1;
+        size = 0;
+    }
+
+    private void grow() {
+        int capacity = 2 * entries.length;
+        entries = Arrays.copyOf(entries, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+    }
+}
@@ -0,0 +1,328 @@
+package A2Q2;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Triages patients as PatientTriage does, keeping the patients off the Java
+ * heap for a large waiting room.  Patients are fixed-width records in a
+ * memory-mapped PatientTable, and the priority and arrival queues are heaps
+ * of int record indexes whose locators write each record's locations
+ * straight into the mapped record.  Admitting and seeing patients creates no
+ * objects, so the garbage collector has nothing to trace however many are
+ * waiting.
+ * Patients are identified by the record returned from add, which stays valid
+ * until they are removed.  Patients who tie are seen in order of admission,
+ * except that a re-triaged patient goes behind those already waiting at their
+ * new priority, as in every engine of PatientTriage.
+ * The waiting room survives a restart through the mapping: reopening the
+ * file puts each record back at its saved queue locations in linear time.
+ * Changes reach the file when the operating system writes the mapping back,
+ * or on force; after a crash in the middle of an operation the queues are
+ * rebuilt from the records instead.  Like PatientTriage, this class is not
+ * thread-safe.
+ */
+public class MappedPatientTriage implements Closeable {
+
+    private final PatientTable table;
+    private final IntHeap priorityHeap; //records in priority order, then order of admission or re-triage
+    private final IntHeap timeHeap; //records in order of arrival, then order of admission
+    private long maxWaitMinutes; //maximum waiting time in minutes
+
+    /**
+     * Constructor, reopening the waiting room saved in a file
+     *
+     * @param time Maximum wait time, unless one was saved.  Patients waiting longer than this are seen first.
+     * @param file the mapped file, created if missing
+     * @throws NullPointerException if given null time or file
+     * @throws IOException if the file cannot be mapped, or is not a patient table
+     */
+    public MappedPatientTriage(Time time, Path file) throws NullPointerException, IOException {
+        if (time == null || file == null) {
+            throw new NullPointerException();
+        }
+        table = new PatientTable(file);
+        priorityHeap = new IntHeap(new IntHeap.Positions() {
+            public int get(int record) {
+                return table.priorityPos(record);
+            }
+            public void set(int record, int pos) {
+                table.setPriorityPos(record, pos);
+            }
+        });
+        timeHeap = new IntHeap(new IntHeap.Positions() {
+            public int get(int record) {
+                return table.timePos(record);
+            }
+            public void set(int record, int pos) {
+                table.setTimePos(record, pos);
+            }
+        });
+        if (table.created()) {
+            table.setMaxWait(EpochMinute.of(time));
+        }
+        maxWaitMinutes = table.maxWait();
+        reload();
+    }
+
+    /**
+     * Admits a patient.
+     *
+     * @param id patient ID
+     * @param priority patient priority
+     * @param arrival arrival time in epoch minutes
+     * @return the record of the patient, valid until they are removed
+     * @throws BoundaryViolationException if id, priority or arrival are out of range
+     * @throws IllegalStateException if the table is full
+     * @throws UncheckedIOException if the file cannot be grown
+     */
+    public int add(int id, int priority, long arrival) throws BoundaryViolationException {
+        if (id < 1 || priority < 1 || arrival < 0) {
+            throw new BoundaryViolationException();
+        }
+        int r;
+        try {
+            r = table.allocate(id, priority, arrival);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        priorityHeap.offer(r, priority, table.prioritySeq(r));
+        timeHeap.offer(r, arrival, table.seq(r));
+        return r;
+    }
+
+    /**
+     * Admits a patient.
+     *
+     * @param patient the patient to admit; later changes to it are not seen
+     * @return the record of the patient, valid until they are removed
+     * @throws NullPointerException if given null patient
+     * @throws IllegalStateException if the table is full
+     */
+    public int add(Patient patient) throws NullPointerException {
+        try {
+            return add(patient.getID(), patient.getPriority(), patient.getArrival());
+        } catch (BoundaryViolationException ex) {
+            throw new IllegalStateException(ex); //a Patient is always in range
+        }
+    }
+
+    /**
+     * Re-triages a waiting patient, moving them within the priority queue in
+     * place.  They go behind those already waiting at the new priority, even
+     * if it is unchanged.
+     *
+     * @param record record of the waiting patient
+     * @param newPriority new priority
+     * @throws BoundaryViolationException if newPriority is out of range or
+     * the patient is not waiting
+     */
+    public void reprioritize(int record, int newPriority) throws BoundaryViolationException {
+        if (newPriority < 1 || !table.holds(record)) {
+            throw new BoundaryViolationException();
+        }
+        table.setPriority(record, newPriority);
+        priorityHeap.update(table.priorityPos(record), newPriority, table.prioritySeq(record));
+    }
+
+    /**
+     * Removes next patient in queue.
+     *
+     * @param currentTime used to determine whether to use priority or arrival time
+     * @return ID of the next patient to attend to
+     * @throws NullPointerException if given null time
+     * @throws EmptyQueueException if queue is empty
+     */
+    public int remove(Time currentTime) throws NullPointerException, EmptyQueueException {
+        if (currentTime == null) {
+            throw new NullPointerException();
+        }
+        return remove(EpochMinute.of(currentTime));
+    }
+
+    /**
+     * Removes next patient in queue.
+     *
+     * @param now current time in epoch minutes, used to determine whether to use priority or arrival time
+     * @return ID of the next patient to attend to
+     * @throws EmptyQueueException if queue is empty
+     */
+    public int remove(long now) throws EmptyQueueException {
+        if (isEmpty()) {
+            throw new EmptyQueueException();
+        }
+        int r = timeHeap.peekKey() <= now - maxWaitMinutes ? timeHeap.peek() : priorityHeap.peek();
+        int id = table.id(r);
+        try {
+            priorityHeap.remove(table.priorityPos(r));
+            timeHeap.remove(table.timePos(r));
+        } catch (BoundaryViolationException ex) {
+            throw new IllegalStateException(ex); //locations are kept by the heaps
+        }
+        table.free(r);
+        return id;
+    }
+
+    /**
+     * @return record of the patient first in priority order, or 0 if none are waiting
+     */
+    public int peekByPriority() {
+        return priorityHeap.peek();
+    }
+
+    /**
+     * @return record of the patient who has waited longest, or 0 if none are waiting
+     */
+    public int peekByArrival() {
+        return timeHeap.peek();
+    }
+
+    /**
+     * @param record record of a waiting patient
+     * @return ID of the patient
+     * @throws BoundaryViolationException if the patient is not waiting
+     */
+    public int getID(int record) throws BoundaryViolationException {
+        if (!table.holds(record)) {
+            throw new BoundaryViolationException();
+        }
+        return table.id(record);
+    }
+
+    /**
+     * @param record record of a waiting patient
+     * @return priority of the patient
+     * @throws BoundaryViolationException if the patient is not waiting
+     */
+    public int getPriority(int record) throws BoundaryViolationException {
+        if (!table.holds(record)) {
+            throw new BoundaryViolationException();
+        }
+        return table.priority(record);
+    }
+
+    /**
+     * @param record record of a waiting patient
+     * @return arrival time of the patient in epoch minutes
+     * @throws BoundaryViolationException if the patient is not waiting
+     */
+    public long getArrival(int record) throws BoundaryViolationException {
+        if (!table.holds(record)) {
+            throw new BoundaryViolationException();
+        }
+        return table.arrival(record);
+    }
+
+   /**
+     * @return time in epoch minutes at which the patient who has waited longest
+     * becomes overdue, or Long.MAX_VALUE if none are waiting or the deadline
+     * lies beyond it
+     */
+    public long nextDeadline() {
+        if (isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long deadline = timeHeap.peekKey() + maxWaitMinutes;
+        return deadline < maxWaitMinutes ? Long.MAX_VALUE : deadline; //saturate on overflow
+    }
+
+   /**
+     * @return number of patients waiting
+     */
+    public int size() {
+        return priorityHeap.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+   /**
+     * @return maximum wait time, or null if it is 24 hours or more
+     */
+    public Time getMaxWait() {
+        return maxWaitMinutes < EpochMinute.MINUTES_PER_DAY ? EpochMinute.toTime(maxWaitMinutes) : null;
+    }
+
+   /**
+     * @return maximum wait time in minutes
+     */
+    public long getMaxWaitMinutes() {
+        return maxWaitMinutes;
+    }
+
+    /**
+     * Set the maximum wait time
+     *
+     * @param time - the maximum wait time
+     * @throws NullPointerException if given null time
+     */
+    public void setMaxWait(Time time) throws NullPointerException {
+        if (time == null) {
+            throw new NullPointerException();
+        }
+        maxWaitMinutes = EpochMinute.of(time);
+        table.setMaxWait(maxWaitMinutes);
+    }
+
+    /**
+     * Set the maximum wait time, which may be 24 hours or more
+     *
+     * @param minutes - the maximum wait time in minutes
+     * @throws BoundaryViolationException if minutes is negative
+     */
+    public void setMaxWait(long minutes) throws BoundaryViolationException {
+        if (minutes < 0) {
+            throw new BoundaryViolationException();
+        }
+        maxWaitMinutes = minutes;
+        table.setMaxWait(minutes);
+    }
+
+    /**
+     * Writes the waiting room through to the file.
+     */
+    public void force() {
+        table.force();
+    }
+
+    /**
+     * Writes the waiting room through to the file and unmaps it.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        table.close();
+    }
+
+    /**
+     * Puts the records of waiting patients back into both queues.
+     */
+    private void reload() {
+        int n = 0;
+        int top = table.top();
+        for (int r = 1; r < top; r++) {
+            if (table.id(r) != 0) {
+                n++;
+            }
+        }
+        int[] records = new int[n];
+        long[] keys = new long[n];
+        long[] seqs = new long[n];
+        n = 0;
+        for (int r = 1; r < top; r++) {
+            if (table.id(r) != 0) {
+                records[n] = r;
+                keys[n] = table.priority(r);
+                seqs[n++] = table.prioritySeq(r);
+            }
+        }
+        priorityHeap.restore(records, keys, seqs, n);
+        for (int i = 0; i < n; i++) {
+            keys[i] = table.arrival(records[i]);
+            seqs[i] = table.seq(records[i]);
+        }
+        timeHeap.restore(records, keys, seqs, n);
+    }
+}
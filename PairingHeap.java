@@ -0,0 +1,448 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Adaptable priority queue keyed on primitive longs, using a pairing heap of
+ * location-aware entries.  The nodes of the heap are slots in parallel
+ * arrays, linked by first child, next sibling and previous sibling (or
+ * parent, for a first child), so linking allocates nothing once the arrays
+ * have grown to size.  Offer and decrease-key link one node with the root in
+ * constant time; poll, remove and increase-key merge the children of a node
+ * in two passes, in amortized logarithmic time.  Entries with equal keys are
+ * returned in the order in which they were added; an entry whose key is
+ * updated counts as added then.  The location reported through the Locator
+ * is the slot holding the entry, which does not change while the entry is
+ * queued.  The key of each entry is read when it is offered or updated.
+ *
+ * @param <E> The entry type.
+ */
+public class PairingHeap<E> implements AdaptablePriorityQueue<E> {
+
+    private Object[] entries = new Object[16]; //entry held by each slot, null if free
+    private long[] keys = new long[16]; //key of the entry in each slot
+    private long[] seqs = new long[16]; //order in which each entry was added, to break ties
+    private int[] child = new int[16]; //first child of each node, 0 if none
+    private int[] next = new int[16]; //next sibling of each node, or next free slot
+    private int[] prev = new int[16]; //previous sibling of each node, or parent of a first child
+    private int root; //slot of the first entry, 0 if empty
+    private int free; //first free slot
+    private int top = 1; //slots below top have been handed out at least once
+    private int size;
+    private long nextSeq;
+    private long links; //pairs of nodes linked, for metrics
+    private final KeyExtractor<E> key; //to key the entries
+    private final Locator<E> locator; //to locate the entries within the queue
+
+    /**
+     * Constructor
+     * @param key used to key the entries
+     * @param locator used to locate the entries in the queue
+     * @throws NullPointerException if key or locator parameters are null
+     */
+    public PairingHeap(KeyExtractor<E> key, Locator<E> locator) throws NullPointerException {
+        if (key == null || locator == null) {
+            throw new NullPointerException();
+        }
+        this.key = key;
+        this.locator = locator;
+    }
+
+    /**
+     * Inserts the specified entry into this priority queue, linking it with
+     * the root in constant time.
+     *
+     * @param e the entry to insert
+     * @throws NullPointerException if parameter e is null
+     */
+    public void offer(E e) throws NullPointerException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int slot;
+        if (free != 0) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (top == entries.length) {
+                grow();
+            }
+            slot = top++;
+        }
+        entries[slot] = e;
+        keys[slot] = key.getKey(e);
+        seqs[slot] = nextSeq++;
+        child[slot] = 0;
+        next[slot] = 0;
+        prev[slot] = 0;
+        size++;
+        locator.set(e, slot);
+        root = link(root, slot);
+    }
+
+    /**
+     * Inserts all of the specified entries into this priority queue, each in
+     * constant time.
+     *
+     * @param batch the entries to insert
+     * @throws NullPointerException if batch or any entry is null
+     */
+    public void addAll(Collection<? extends E> batch) throws NullPointerException {
+        for (E e : batch) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+        }
+        for (E e : batch) {
+            offer(e);
+        }
+    }
+
+    /**
+     * Restores the order of the queue after the key of an entry has changed.
+     * A smaller key cuts the entry from its parent and links it with the
+     * root in constant time; a larger or unchanged key also merges its
+     * children back in, as the entry goes behind every entry with an equal
+     * key.
+     *
+     * @param e the entry whose key has changed
+     * @throws NullPointerException if parameter e is null
+     * @throws BoundaryViolationException if e is not at its reported location
+     */
+    public void update(E e) throws NullPointerException, BoundaryViolationException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int pos = locator.get(e);
+        if (!contains(pos) || entries[pos] != e) {
+            throw new BoundaryViolationException();
+        }
+        long k = key.getKey(e);
+        boolean smaller = k < keys[pos];
+        keys[pos] = k;
+        seqs[pos] = nextSeq++;
+        if (pos == root) {
+            if (!smaller) {
+                root = mergePairs(child[pos]);
+                child[pos] = 0;
+                root = link(root, pos);
+            }
+            return;
+        }
+        cut(pos);
+        if (!smaller) {
+            root = link(root, mergePairs(child[pos]));
+            child[pos] = 0;
+        }
+        root = link(root, pos);
+    }
+
+    /**
+     * Removes the entry at the specified location, merging its children
+     * with the root.
+     *
+     * @param pos the location of the entry to remove
+     * @throws BoundaryViolationException if pos does not hold an entry
+     */
+    public void remove(int pos) throws BoundaryViolationException {
+        if (!contains(pos)) {
+            throw new BoundaryViolationException();
+        }
+        if (pos == root) {
+            poll();
+            return;
+        }
+        cut(pos);
+        root = link(root, mergePairs(child[pos]));
+        release(pos);
+    }
+
+    /**
+     * Removes all of the specified entries, which must be distinct and in the
+     * queue, one at a time.
+     *
+     * @param batch the entries to remove
+     * @throws NullPointerException if batch or any entry is null
+     * @throws BoundaryViolationException if an entry is not at its reported location
+     */
+    public void removeAll(Collection<? extends E> batch) throws NullPointerException, BoundaryViolationException {
+        for (E e : batch) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            int pos = locator.get(e);
+            if (!contains(pos) || entries[pos] != e) {
+                throw new BoundaryViolationException();
+            }
+        }
+        for (E e : batch) {
+            remove(locator.get(e));
+        }
+    }
+
+    /**
+     * Removes every entry that satisfies filter, walking the slots in one
+     * pass and pairing the survivors into a new heap in linear time.
+     */
+    public boolean removeIf(Predicate<? super E> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException();
+        }
+        int before = size;
+        int survivors = 0; //sibling list of the survivors, last found first
+        for (int slot = 1; slot < top; slot++) {
+            if (entries[slot] == null) {
+                continue;
+            }
+            if (filter.test(entry(slot))) {
+                release(slot);
+                continue;
+            }
+            child[slot] = 0;
+            prev[slot] = 0;
+            next[slot] = survivors;
+            if (survivors != 0) {
+                prev[survivors] = slot;
+            }
+            survivors = slot;
+        }
+        root = mergePairs(survivors);
+        return size < before;
+    }
+
+    /**
+     * Removes the first entry in the priority queue.
+     */
+    public E poll() {
+        if (root == 0) {
+            return null;
+        }
+        int first = root;
+        E e = entry(first);
+        root = mergePairs(child[first]);
+        release(first);
+        return e;
+    }
+
+    /**
+     * Returns but does not remove the first entry in the priority queue.
+     */
+    public E peek() {
+        return root == 0 ? null : entry(root);
+    }
+
+    /**
+     * Returns the entries in the order in which repeated polls would return
+     * them, sorting the slots in n log n time.
+     */
+    public List<E> toList() {
+        Integer[] order = slots();
+        Arrays.sort(order, (a, b) -> keys[a] != keys[b] ? Long.compare(keys[a], keys[b]) : Long.compare(seqs[a], seqs[b]));
+        return entriesOf(order);
+    }
+
+    /**
+     * Visits the entries in order, walking the heap best first: each entry
+     * visited puts its children on a frontier, as they follow it but not
+     * each other, so visiting k entries takes O(k log k) time plus the
+     * number of their children.  The root may have up to n children until a
+     * poll pairs them.  The heap is only read.
+     */
+    public void forEachInOrder(Predicate<? super E> visitor) throws NullPointerException {
+        if (visitor == null) {
+            throw new NullPointerException();
+        }
+        if (root == 0) {
+            return;
+        }
+        Frontier frontier = new Frontier(this::less);
+        frontier.offer(root);
+        while (!frontier.isEmpty()) {
+            int slot = frontier.poll();
+            if (!visitor.test(entry(slot))) {
+                return;
+            }
+            for (int c = child[slot]; c != 0; c = next[c]) {
+                frontier.offer(c);
+            }
+        }
+    }
+
+    /**
+     * Returns the entries in the order in which they were inserted or last
+     * updated, which breaks ties between equal keys.  Re-inserting the entries in this order into an empty queue rebuilds
+     * the same order of ties.
+     *
+     * @return a new list of the entries, first inserted first
+     */
+    public List<E> toInsertionList() {
+        Integer[] order = slots();
+        Arrays.sort(order, (a, b) -> Long.compare(seqs[a], seqs[b]));
+        return entriesOf(order);
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 1, top, null);
+        root = 0;
+        free = 0;
+        top = 1;
+        size = 0;
+        nextSeq = 0;
+    }
+
+    /**
+     * Returns the number of pairs of nodes linked since the queue was
+     * created, each of which moves one node a level down.
+     */
+    public long getSiftCount() {
+        return links;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the root of the two trees with roots a and b, 0 for none, the
+     * other root becoming its first child
+     */
+    private int link(int a, int b) {
+        if (a == 0) {
+            return b;
+        }
+        if (b == 0) {
+            return a;
+        }
+        if (less(b, a)) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int c = child[a];
+        next[b] = c;
+        if (c != 0) {
+            prev[c] = b;
+        }
+        prev[b] = a;
+        child[a] = b;
+        links++;
+        return a;
+    }
+
+    /**
+     * Merges a list of sibling trees into one: links them in pairs from left
+     * to right, then links the pairs from right to left.
+     *
+     * @param first first tree of the list, 0 for none
+     * @return the root of the merged tree, 0 for none
+     */
+    private int mergePairs(int first) {
+        int pairs = 0; //the pairs linked so far, last first, chained by next
+        int x = first;
+        while (x != 0) {
+            int y = next[x];
+            int rest = y == 0 ? 0 : next[y];
+            next[x] = 0;
+            prev[x] = 0;
+            if (y != 0) {
+                next[y] = 0;
+                prev[y] = 0;
+                x = link(x, y);
+            }
+            next[x] = pairs;
+            pairs = x;
+            x = rest;
+        }
+        int merged = 0;
+        while (pairs != 0) {
+            int rest = next[pairs];
+            next[pairs] = 0;
+            merged = link(pairs, merged);
+            pairs = rest;
+        }
+        return merged;
+    }
+
+    /**
+     * Detaches the tree rooted at a node other than the root from its parent
+     * and siblings.
+     */
+    private void cut(int x) {
+        int p = prev[x];
+        int n = next[x];
+        if (child[p] == x) {
+            child[p] = n;
+        } else {
+            next[p] = n;
+        }
+        if (n != 0) {
+            prev[n] = p;
+        }
+        prev[x] = 0;
+        next[x] = 0;
+    }
+
+    /**
+     * @return true if entry a comes before entry b
+     */
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || keys[a] == keys[b] && seqs[a] < seqs[b];
+    }
+
+    /**
+     * Returns a slot that has left the heap to the free list.
+     */
+    private void release(int slot) {
+        entries[slot] = null;
+        child[slot] = 0;
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    private boolean contains(int pos) {
+        return pos > 0 && pos < top && entries[pos] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E entry(int slot) {
+        return (E) entries[slot];
+    }
+
+    /**
+     * @return the slots holding entries
+     */
+    private Integer[] slots() {
+        Integer[] order = new Integer[size];
+        int n = 0;
+        for (int slot = 1; slot < top; slot++) {
+            if (entries[slot] != null) {
+                order[n++] = slot;
+            }
+        }
+        return order;
+    }
+
+    private List<E> entriesOf(Integer[] order) {
+        List<E> list = new ArrayList<>(order.length);
+        for (int slot : order) {
+            list.add(entry(slot));
+        }
+        return list;
+    }
+
+    private void grow() {
+        int capacity = 2 * entries.length;
+        entries = Arrays.copyOf(entries, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        seqs = Arrays.copyOf(seqs, capacity);
+        child = Arrays.copyOf(child, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+}
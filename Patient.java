@@ -4,7 +4,10 @@ import java.util.*;
 
 /**
  * A location-aware patient record, representing 1) a patient ID, priority and
- * arrival time. ID and priority must be positive integers.
+ * arrival time. ID and priority must be positive integers.  The arrival time
+ * is also held as an EpochMinute timestamp, which is what the queues compare.
+ * A patient whose arrival is set in epoch minutes builds its Time only when
+ * asked for it, so recycling patients allocates nothing.
  * Also represented are integer locations in priority and arrival time queues.
  *
  * @author elder
@@ -13,7 +16,8 @@ public class Patient {
 
     private int id;
     private int priority;
-    private Time arrivalTime;
+    private Time arrivalTime; //null until asked for, if arrival was set in epoch minutes
+    private long arrival; //arrivalTime in epoch minutes
     private int priorityPos;
     private int timePos;
 
@@ -32,6 +36,20 @@ public class Patient {
         setArrivalTime(time);
     }
 
+    /**
+     * Constructor
+     *
+     * @param patientID
+     * @param patientPriority
+     * @param arrival arrival time in epoch minutes
+     * @throws BoundaryViolationException if patientID, patientPriority or arrival are out of range
+      */
+    public Patient(int patientID, int patientPriority, long arrival) throws BoundaryViolationException {
+        setID(patientID);
+        setPriority(patientPriority);
+        setArrival(arrival);
+    }
+
     public int getID() {
         return id;
     }
@@ -45,9 +63,19 @@ public class Patient {
     }
 
     public Time getArrivalTime() {
+        if (arrivalTime == null) {
+            arrivalTime = EpochMinute.toTime(arrival);
+        }
         return arrivalTime;
     }
 
+    /**
+     * @return arrival time in epoch minutes
+     */
+    public long getArrival() {
+        return arrival;
+    }
+
     public int getTimePos() {
         return timePos;
     }
@@ -90,6 +118,19 @@ public class Patient {
             throw new NullPointerException();
         }
         arrivalTime = time;
+        arrival = EpochMinute.of(time);
+    }
+
+    /**
+     * @param arrival arrival time in epoch minutes
+     * @throws BoundaryViolationException if arrival is negative
+     */
+    public void setArrival(long arrival) throws BoundaryViolationException {
+        if (arrival < 0) {
+            throw new BoundaryViolationException();
+        }
+        this.arrival = arrival;
+        arrivalTime = null;
     }
 
     /**
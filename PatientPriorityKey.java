@@ -0,0 +1,14 @@
+package A2Q2;
+
+/**
+ * Priority key for Patients
+ */
+public class PatientPriorityKey implements KeyExtractor<Patient> {
+
+    public long getKey(Patient p) throws NullPointerException {
+        if (p == null) {
+            throw new NullPointerException();
+        }
+        return p.getPriority();
+    }
+}
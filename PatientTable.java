@@ -0,0 +1,227 @@
+package A2Q2;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Table of fixed-width patient records in a memory-mapped file, so that a
+ * large waiting room puts no objects on the Java heap.  Each record holds a
+ * patient ID, priority, arrival time in epoch minutes, the sequence numbers
+ * given at admission and at the last change of priority, and the patient's
+ * locations in the priority and arrival queues.
+ * Records are numbered from 1; record 0 is the header, which holds the
+ * number of records handed out, the next sequence number and maxWait.
+ * Removed records have ID 0 and are reused.  The file doubles as it fills,
+ * up to MAX_RECORDS.
+ */
+final class PatientTable implements Closeable {
+
+    static final int RECORD_BYTES = 40;
+    static final int MAX_RECORDS = Integer.MAX_VALUE / RECORD_BYTES; //largest mapping is 2GB
+
+    private static final int MAGIC = 0x5054424c; //"PTBL"
+    private static final int INITIAL_RECORDS = 1024;
+
+    //header fields
+    private static final int TOP = 4; //records below top have been handed out at least once
+    private static final int NEXT_SEQ = 8;
+    private static final int MAX_WAIT = 16;
+
+    //record fields
+    private static final int ID = 0;
+    private static final int PRIORITY = 4;
+    private static final int ARRIVAL = 8;
+    private static final int SEQ = 16;
+    private static final int PRIORITY_POS = 24;
+    private static final int TIME_POS = 28;
+    private static final int PRIORITY_SEQ = 32;
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity; //records in the mapping, including the header
+    private int[] free = new int[16]; //removed records, for reuse
+    private int freeCount;
+    private final boolean created;
+
+    /**
+     * Opens the table in a file, creating the file if it is missing or empty.
+     *
+     * @param file the mapped file
+     * @throws IOException if the file cannot be mapped, or is not a patient table
+     */
+    PatientTable(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = channel.size();
+        created = length == 0;
+        if (created) {
+            map(INITIAL_RECORDS);
+            map.putInt(0, MAGIC);
+            map.putInt(TOP, 1);
+        } else {
+            if (length < RECORD_BYTES || length > (long) MAX_RECORDS * RECORD_BYTES) {
+                channel.close();
+                throw new IOException("not a patient table: " + file);
+            }
+            map((int) (length / RECORD_BYTES));
+            if (map.getInt(0) != MAGIC || top() < 1 || top() > capacity) {
+                channel.close();
+                throw new IOException("not a patient table: " + file);
+            }
+            for (int r = top() - 1; r >= 1; r--) {
+                if (id(r) == 0) {
+                    release(r);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the file was created rather than reopened
+     */
+    boolean created() {
+        return created;
+    }
+
+    /**
+     * Stores a new patient, giving them the next sequence number both as
+     * admission and priority sequence number.
+     *
+     * @return the record holding the patient
+     * @throws IllegalStateException if the table is full
+     */
+    int allocate(int id, int priority, long arrival) throws IOException {
+        int r;
+        if (freeCount > 0) {
+            r = free[--freeCount];
+        } else {
+            r = top();
+            if (r == capacity) {
+                if (capacity == MAX_RECORDS) {
+                    throw new IllegalStateException("patient table full");
+                }
+                map((int) Math.min(2L * capacity, MAX_RECORDS));
+            }
+            map.putInt(TOP, r + 1);
+        }
+        long seq = map.getLong(NEXT_SEQ);
+        map.putLong(NEXT_SEQ, seq + 1);
+        int at = r * RECORD_BYTES;
+        map.putInt(at + PRIORITY, priority);
+        map.putLong(at + ARRIVAL, arrival);
+        map.putLong(at + SEQ, seq);
+        map.putLong(at + PRIORITY_SEQ, seq);
+        map.putInt(at + PRIORITY_POS, 0);
+        map.putInt(at + TIME_POS, 0);
+        map.putInt(at + ID, id); //last, so a record with an ID is complete
+        return r;
+    }
+
+    /**
+     * Removes a patient, keeping the record for reuse.
+     */
+    void free(int r) {
+        map.putInt(r * RECORD_BYTES + ID, 0);
+        release(r);
+    }
+
+    /**
+     * @return true if r is a record holding a patient
+     */
+    boolean holds(int r) {
+        return r >= 1 && r < top() && id(r) != 0;
+    }
+
+    /**
+     * @return records handed out so far, plus one for the header
+     */
+    int top() {
+        return map.getInt(TOP);
+    }
+
+    int id(int r) {
+        return map.getInt(r * RECORD_BYTES + ID);
+    }
+
+    int priority(int r) {
+        return map.getInt(r * RECORD_BYTES + PRIORITY);
+    }
+
+    /**
+     * Changes the priority of a patient, giving them the next priority sequence number.
+     */
+    void setPriority(int r, int priority) {
+        long seq = map.getLong(NEXT_SEQ);
+        map.putLong(NEXT_SEQ, seq + 1);
+        map.putInt(r * RECORD_BYTES + PRIORITY, priority);
+        map.putLong(r * RECORD_BYTES + PRIORITY_SEQ, seq);
+    }
+
+    long arrival(int r) {
+        return map.getLong(r * RECORD_BYTES + ARRIVAL);
+    }
+
+    /**
+     * @return sequence number given to a patient at admission
+     */
+    long seq(int r) {
+        return map.getLong(r * RECORD_BYTES + SEQ);
+    }
+
+    /**
+     * @return sequence number given to a patient at admission or at the last change of priority
+     */
+    long prioritySeq(int r) {
+        return map.getLong(r * RECORD_BYTES + PRIORITY_SEQ);
+    }
+
+    int priorityPos(int r) {
+        return map.getInt(r * RECORD_BYTES + PRIORITY_POS);
+    }
+
+    void setPriorityPos(int r, int pos) {
+        map.putInt(r * RECORD_BYTES + PRIORITY_POS, pos);
+    }
+
+    int timePos(int r) {
+        return map.getInt(r * RECORD_BYTES + TIME_POS);
+    }
+
+    void setTimePos(int r, int pos) {
+        map.putInt(r * RECORD_BYTES + TIME_POS, pos);
+    }
+
+    long maxWait() {
+        return map.getLong(MAX_WAIT);
+    }
+
+    void setMaxWait(long minutes) {
+        map.putLong(MAX_WAIT, minutes);
+    }
+
+    /**
+     * Writes the mapped records through to the file.
+     */
+    void force() {
+        map.force();
+    }
+
+    public void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    private void map(int records) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * RECORD_BYTES);
+        capacity = records;
+    }
+
+    private void release(int r) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, 2 * free.length);
+        }
+        free[freeCount++] = r;
+    }
+}
@@ -0,0 +1,14 @@
+package A2Q2;
+
+/**
+ * Arrival time key for Patients, in epoch minutes
+ */
+public class PatientTimeKey implements KeyExtractor<Patient> {
+
+    public long getKey(Patient p) throws NullPointerException {
+        if (p == null) {
+            throw new NullPointerException();
+        }
+        return p.getArrival();
+    }
+}
@@ -8,13 +8,145 @@ import java.util.*;
  * Normally patients are seen in priority order, however, if there are patients 
  * who have waited longer than a specified time (maxWait), they are seen first, 
  * in order of their arrival.  
+ * Priorities up to BucketQueue.MAX_LEVELS are kept in constant-time buckets,
+ * and arrivals in a constant-time FIFO queue.  The first larger priority, or
+ * the first patient arriving before the last one added, moves that queue onto
+ * a heap.  Other engines can be chosen for either queue through a Builder:
+ * a 4-ary heap from the start, a pairing heap, with constant-time insert and
+ * re-triage to a higher priority, or for arrivals a monotone radix heap,
+ * which also moves onto a 4-ary heap if a patient arrives before the one who
+ * has waited longest.
+ * Every patient becomes overdue at their arrival time plus maxWait.  As all
+ * patients share maxWait, that deadline order is the arrival order, so the
+ * arrival queue serves as the deadline index: the overdue test is a single
+ * comparison of its head against the current time less maxWait, and changing
+ * maxWait re-bases every deadline at once without touching the queue.
+ * In lazy deletion mode a patient seen from one queue is not removed from
+ * the other if it is a heap, but left there as a stale entry, marked by a
+ * position of STALE for the queue they were taken from.  Stale entries are discarded when they
+ * reach the head of their queue, and a queue that is more than half stale
+ * is compacted in one linear pass.  Until then, a patient seen must not be
+ * added to another triage, though re-adding them to this one is allowed.
+ * Waiting patients can also be looked up by ID in an open-addressing map of
+ * int keys, so that a patient who leaves without being seen is found and
+ * cancelled in constant expected time without boxing the ID.  The map is
+ * kept up to date as patients are added and removed, so a find only reads.
+ * Patients waiting at once should have distinct IDs; of several sharing
+ * one, only one is found.
  * @author elder
  */
 public class PatientTriage {
 
-    private APQ<Patient> priorityHeap; //maintain patients in priority order
-    private APQ<Patient> timeHeap;  //maintain patients in order of arrival
-    private Time maxWait; //maximum waiting time
+    private AdaptablePriorityQueue<Patient> priorityHeap; //maintain patients in priority order
+    private AdaptablePriorityQueue<Patient> timeHeap;  //maintain patients in order of arrival
+    private Time maxWait; //maximum waiting time, null if 24 hours or more
+    private long maxWaitMinutes; //maximum waiting time in minutes
+    private TriageMetrics metrics = TriageMetrics.NO_OP; //told of each add and remove
+    private final boolean lazy; //leave patients seen as stale entries in the other queue
+    private final Engine priorityEngine; //queue kept for priority order
+    private final Engine arrivalEngine; //queue kept for arrival order
+    private int stalePriority; //stale entries in priorityHeap
+    private int staleTime; //stale entries in timeHeap
+    private final IntMap<Patient> byID = new IntMap<>(); //waiting patients by ID
+
+    /**
+     * Position of a patient in the queue they were seen from, while a stale
+     * entry for them is left in the other queue in lazy deletion mode.
+     */
+    public static final int STALE = -1;
+
+    /**
+     * Queue engines for the priority and arrival queues.
+     */
+    public enum Engine {
+        /** constant-time buckets, up to BucketQueue.MAX_LEVELS priorities; priority queue only */
+        BUCKETS,
+        /** constant-time FIFO queue, while patients arrive in order; arrival queue only */
+        FIFO,
+        /** 4-ary heap */
+        DARY_HEAP,
+        /** 4-ary heap keyed on primitive longs, compared without a Comparator */
+        KEYED_HEAP,
+        /** pairing heap */
+        PAIRING_HEAP,
+        /** monotone radix heap, while no patient arrives before the one who has waited longest; arrival queue only */
+        RADIX_HEAP
+    }
+
+    /**
+     * Builds a PatientTriage with chosen engines.  By default the priority
+     * queue uses BUCKETS, the arrival queue FIFO, and deletion is eager, as
+     * in a triage built by the constructors.  Queues that cannot hold a
+     * patient move onto a 4-ary heap.
+     */
+    public static class Builder {
+
+        private final Time maxWait;
+        private Engine priorityEngine = Engine.BUCKETS;
+        private Engine arrivalEngine = Engine.FIFO;
+        private boolean lazyDeletion;
+
+        /**
+         * Constructor
+         *
+         * @param time Maximum wait time.  Patients waiting longer than this are seen first.
+         * @throws NullPointerException if given null time
+         */
+        public Builder(Time time) throws NullPointerException {
+            if (time == null) {
+                throw new NullPointerException();
+            }
+            maxWait = time;
+        }
+
+        /**
+         * @param engine BUCKETS, DARY_HEAP, KEYED_HEAP or PAIRING_HEAP
+         * @return this builder
+         * @throws NullPointerException if given null engine
+         * @throws IllegalArgumentException if engine cannot keep priority order
+         */
+        public Builder priorityQueue(Engine engine) throws NullPointerException {
+            if (engine == null) {
+                throw new NullPointerException();
+            }
+            if (engine == Engine.FIFO || engine == Engine.RADIX_HEAP) {
+                throw new IllegalArgumentException(engine + " cannot keep priority order");
+            }
+            priorityEngine = engine;
+            return this;
+        }
+
+        /**
+         * @param engine FIFO, DARY_HEAP, KEYED_HEAP, PAIRING_HEAP or RADIX_HEAP
+         * @return this builder
+         * @throws NullPointerException if given null engine
+         * @throws IllegalArgumentException if engine cannot keep arrival order
+         */
+        public Builder arrivalQueue(Engine engine) throws NullPointerException {
+            if (engine == null) {
+                throw new NullPointerException();
+            }
+            if (engine == Engine.BUCKETS) {
+                throw new IllegalArgumentException(engine + " cannot keep arrival order");
+            }
+            arrivalEngine = engine;
+            return this;
+        }
+
+        /**
+         * @param lazy whether to leave patients seen as stale entries in the
+         * other queue rather than removing them from it
+         * @return this builder
+         */
+        public Builder lazyDeletion(boolean lazy) {
+            lazyDeletion = lazy;
+            return this;
+        }
+
+        public PatientTriage build() {
+            return new PatientTriage(maxWait, lazyDeletion, priorityEngine, arrivalEngine);
+        }
+    }
 
     /**
      * Constructor
@@ -22,13 +154,31 @@ public class PatientTriage {
      * @param time Maximum wait time.  Patients waiting longer than this are seen first.
      */
     public PatientTriage(Time time) {
-        Comparator<Patient> priorityComparator = new PatientPriorityComparator();
-        Comparator<Patient> timeComparator = new PatientTimeComparator();
-        Locator<Patient> priorityLocator = new PatientPriorityLocator();
-        Locator<Patient> timeLocator = new PatientTimeLocator();
-        priorityHeap = new APQ<>(priorityComparator, priorityLocator);
-        timeHeap = new APQ<>(timeComparator, timeLocator);
-        setMaxWait(time);
+        this(time, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param time Maximum wait time.  Patients waiting longer than this are seen first.
+     * @param lazyDeletion whether to leave patients seen as stale entries in
+     * the other queue rather than removing them from it
+     */
+    public PatientTriage(Time time, boolean lazyDeletion) {
+        this(time, lazyDeletion, Engine.BUCKETS, Engine.FIFO);
+    }
+
+    private PatientTriage(Time time, boolean lazyDeletion, Engine priorityEngine, Engine arrivalEngine) {
+        lazy = lazyDeletion;
+        this.priorityEngine = priorityEngine;
+        this.arrivalEngine = arrivalEngine;
+        priorityHeap = newQueue(priorityEngine, true);
+        timeHeap = newQueue(arrivalEngine, false);
+        if (time == null) {
+            throw new NullPointerException();
+        }
+        maxWait = time; //not setMaxWait, which subclasses may override
+        maxWaitMinutes = EpochMinute.of(time);
     }
 
    /**
@@ -40,8 +190,175 @@ public class PatientTriage {
         if (patient == null) {
             throw new NullPointerException();
         }
+        TriageMetrics m = metrics;
+        if (m == TriageMetrics.NO_OP) {
+            offer(patient);
+            return;
+        }
+        long sifts = siftCount();
+        long start = System.nanoTime();
+        offer(patient);
+        long nanos = System.nanoTime() - start;
+        m.added(patient, nanos, waiting(), siftCount() - sifts);
+    }
+
+    private void offer(Patient patient) {
+        if (lazy && stalePriority + staleTime > 0) {
+            discardStale(patient);
+        }
+        if (!priorityHeap.accepts(patient)) {
+            priorityHeap = toHeap(priorityHeap, true);
+        }
+        if (!timeHeap.accepts(patient)) {
+            timeHeap = toHeap(timeHeap, false);
+        }
         priorityHeap.offer(patient); //add to priority queue
         timeHeap.offer(patient); //add to arrival time queue
+        byID.put(patient.getID(), patient);
+    }
+
+   /**
+     * Adds patients to queues in bulk, e.g. when restoring the waiting room.
+     * Heaps are built bottom-up in linear time rather than by repeated offers.
+     * @param patients to add, in order of arrival where possible
+     * @throws NullPointerException if given null collection or null patient
+     */
+    public void addAll(Collection<Patient> patients) throws NullPointerException {
+        for (Patient patient : patients) {
+            if (patient == null) {
+                throw new NullPointerException();
+            }
+        }
+        TriageMetrics m = metrics;
+        if (m == TriageMetrics.NO_OP) {
+            offerAll(patients);
+            return;
+        }
+        long sifts = siftCount();
+        long start = System.nanoTime();
+        offerAll(patients);
+        long nanos = System.nanoTime() - start;
+        added(m, patients, nanos, siftCount() - sifts);
+    }
+
+    private void offerAll(Collection<Patient> patients) {
+        if (lazy) {
+            for (Patient patient : patients) {
+                discardStale(patient);
+            }
+        }
+        if (!priorityHeap.acceptsAll(patients)) {
+            priorityHeap = toHeap(priorityHeap, true);
+        }
+        if (!timeHeap.acceptsAll(patients)) {
+            timeHeap = toHeap(timeHeap, false);
+        }
+        priorityHeap.addAll(patients);
+        timeHeap.addAll(patients);
+        for (Patient patient : patients) {
+            byID.put(patient.getID(), patient);
+        }
+    }
+
+   /**
+     * Refills empty queues from their saved orders, e.g. when loading a
+     * snapshot.  Patients who tie keep the order in which they are listed.
+     * @param byPriority the waiting patients in restoreOrder(true)
+     * @param priorityOnHeap whether to keep the priority queue on a heap
+     * @param byArrival the same patients in restoreOrder(false)
+     * @param arrivalOnHeap whether to keep the arrival queue on a heap
+     * @throws NullPointerException if given null list or null patient
+     * @throws BoundaryViolationException if patients are already waiting
+     */
+    void restore(List<Patient> byPriority, boolean priorityOnHeap, List<Patient> byArrival, boolean arrivalOnHeap) throws NullPointerException, BoundaryViolationException {
+        if (!isEmpty()) {
+            throw new BoundaryViolationException();
+        }
+        for (Patient patient : byArrival) {
+            if (patient == null) {
+                throw new NullPointerException();
+            }
+        }
+        priorityHeap = newQueue(priorityEngine, true);
+        if (priorityOnHeap || !priorityHeap.acceptsAll(byPriority)) {
+            priorityHeap = newQueue(Engine.DARY_HEAP, true);
+        }
+        timeHeap = newQueue(arrivalEngine, false);
+        if (arrivalOnHeap || !timeHeap.acceptsAll(byArrival)) {
+            timeHeap = newQueue(Engine.DARY_HEAP, false);
+        }
+        stalePriority = 0;
+        staleTime = 0;
+        priorityHeap.addAll(byPriority);
+        timeHeap.addAll(byArrival);
+        for (Patient patient : byArrival) {
+            byID.put(patient.getID(), patient);
+        }
+    }
+
+   /**
+     * @param priority the priority queue if true, else the arrival queue
+     * @return whether the queue is on a 4-ary heap, by choice or having moved
+     */
+    boolean onHeap(boolean priority) {
+        return priority ? priorityHeap instanceof APQ : timeHeap instanceof APQ;
+    }
+
+   /**
+     * @param priority the priority queue if true, else the arrival queue
+     * @return the waiting patients in the order in which restore should add
+     * them to the queue: queue order for a bucket or FIFO queue, and order of
+     * insertion or last re-triage for a heap, which breaks ties by it
+     */
+    List<Patient> restoreOrder(boolean priority) {
+        AdaptablePriorityQueue<Patient> queue = priority ? priorityHeap : timeHeap;
+        List<Patient> order;
+        if (queue instanceof APQ) {
+            order = ((APQ<Patient>) queue).toInsertionList();
+        } else if (queue instanceof KeyedAPQ) {
+            order = ((KeyedAPQ<Patient>) queue).toInsertionList();
+        } else if (queue instanceof PairingHeap) {
+            order = ((PairingHeap<Patient>) queue).toInsertionList();
+        } else {
+            order = queue.toList();
+        }
+        if (priority ? stalePriority > 0 : staleTime > 0) {
+            order.removeIf(priority ? p -> p.getTimePos() == STALE : p -> p.getPriorityPos() == STALE);
+        }
+        return order;
+    }
+
+   /**
+     * Re-triages a waiting patient, moving them within the priority queue in
+     * place rather than removing and re-adding them.  Whatever the engine,
+     * they go behind the patients already waiting at their new priority.
+     * @param patient waiting patient
+     * @param newPriority new priority
+     * @throws NullPointerException if given null patient
+     * @throws BoundaryViolationException if newPriority is out of range or
+     * the patient is not waiting
+     */
+    public void reprioritize(Patient patient, int newPriority) throws NullPointerException, BoundaryViolationException {
+        if (patient == null) {
+            throw new NullPointerException();
+        }
+        if (patient.getTimePos() == STALE || patient.getPriorityPos() == STALE) {
+            throw new BoundaryViolationException(); //seen already, though still in one queue as a stale entry
+        }
+        int oldPriority = patient.getPriority();
+        patient.setPriority(newPriority);
+        try {
+            if (!priorityHeap.accepts(patient)) {
+                priorityHeap = toHeap(priorityHeap, true);
+            }
+            priorityHeap.update(patient);
+        } catch (BoundaryViolationException ex) {
+            patient.setPriority(oldPriority);
+            throw ex;
+        }
+        if (lazy) {
+            discardStaleHeads(); //a patient moved back may uncover a stale entry
+        }
     }
 
   /**
@@ -56,30 +373,572 @@ public class PatientTriage {
     	if(currentTime == null){
     		throw new NullPointerException();
     	}
+    	return removeAt(EpochMinute.of(currentTime));
+    }
+
+  /**
+     * Removes next patient in queue.  
+     * @param now current time in epoch minutes, used to determine whether to use priority or arrival time
+     * @return Next patient to attend to
+     * @throws EmptyQueueException if queue is empty
+     * @throws BoundaryViolationException under some internal error conditions
+     */
+    public Patient remove(long now) throws EmptyQueueException, BoundaryViolationException {
+    	return removeAt(now);
+    }
+
+    private Patient removeAt(long now) throws EmptyQueueException, BoundaryViolationException {
     	if(this.priorityHeap.isEmpty() || this.timeHeap.isEmpty()){
     		throw new EmptyQueueException();
     	}
-    	
-    	TimeComparator timecomparator = new TimeComparator();
-    	
-    	if(timecomparator.compare(this.timeHeap.peek().getArrivalTime().elapsed(currentTime), this.maxWait) >= 0 ){ //Ⱥʱ䣨Сʱ
+    	return take(now);
+    }
+
+    private Patient take(long now) throws BoundaryViolationException {
+    	TriageMetrics m = metrics;
+    	if (m == TriageMetrics.NO_OP) {
+    		return poll(now);
+    	}
+    	long sifts = siftCount();
+    	long start = System.nanoTime();
+    	Patient patient = poll(now);
+    	long nanos = System.nanoTime() - start;
+    	//the head of the arrival queue was overdue iff the patient taken is
+    	m.removed(patient, now, patient.getArrival() <= now - maxWaitMinutes, nanos, waiting(), siftCount() - sifts);
+    	return patient;
+    }
+
+    private Patient poll(long now) throws BoundaryViolationException {
+    	long cutoff = now - this.maxWaitMinutes; //patients arriving by cutoff are overdue
+    	Patient patient;
+    	if (lazy) {
+    		patient = pollLazy(cutoff);
+    	}
+    	else if(this.timeHeap.peek().getArrival() <= cutoff){ //waited longer than maxWait
     		this.priorityHeap.remove(this.timeHeap.peek().getPriorityPos());
-    		return this.timeHeap.poll();
+    		patient = this.timeHeap.poll();
     	}
     	else{
     		this.timeHeap.remove(this.priorityHeap.peek().getTimePos());
-    		return this.priorityHeap.poll();
+    		patient = this.priorityHeap.poll();
     	}
+    	byID.remove(patient.getID(), patient);
+    	return patient;
+    }
 
+    /**
+     * Takes the next patient from one queue, leaving a stale entry in the
+     * other if it is a heap; bucket and FIFO queues remove in constant time
+     * anyway.  The heads of both queues are kept live, so peeks and the
+     * overdue test never see a stale entry.
+     */
+    private Patient pollLazy(long cutoff) throws BoundaryViolationException {
+        Patient patient;
+        if (timeHeap.peek().getArrival() <= cutoff) {
+            patient = timeHeap.poll();
+            if (isHeap(priorityHeap)) {
+                patient.setTimePos(STALE);
+                stalePriority++;
+            } else {
+                priorityHeap.remove(patient.getPriorityPos());
+            }
+        } else {
+            patient = priorityHeap.poll();
+            if (isHeap(timeHeap)) {
+                patient.setPriorityPos(STALE);
+                staleTime++;
+            } else {
+                timeHeap.remove(patient.getTimePos());
+            }
+        }
+        tidy();
+        return patient;
+    }
+
+    /**
+     * @return whether removing from queue takes more than constant time, so
+     * that lazy deletion leaves stale entries in it
+     */
+    private static boolean isHeap(AdaptablePriorityQueue<Patient> queue) {
+        return queue instanceof APQ || queue instanceof KeyedAPQ || queue instanceof PairingHeap;
+    }
+
+    /**
+     * Discards stale entries uncovered at the heads of the queues by a
+     * removal, and compacts once either queue is more than half stale.
+     */
+    private void tidy() {
+        discardStaleHeads();
+        if (stalePriority > priorityHeap.size() >>> 1 || staleTime > timeHeap.size() >>> 1) {
+            compact();
+        }
+    }
+
+    /**
+     * Discards stale entries from the heads of the queues.
+     */
+    private void discardStaleHeads() {
+        while (stalePriority > 0 && priorityHeap.peek().getTimePos() == STALE) {
+            priorityHeap.poll().setTimePos(0);
+            stalePriority--;
+        }
+        while (staleTime > 0 && timeHeap.peek().getPriorityPos() == STALE) {
+            timeHeap.poll().setPriorityPos(0);
+            staleTime--;
+        }
+    }
+
+    /**
+     * Discards every stale entry in one pass over each queue.
+     */
+    private void compact() {
+        if (stalePriority > 0) {
+            priorityHeap.removeIf(p -> {
+                if (p.getTimePos() != STALE) {
+                    return false;
+                }
+                p.setTimePos(0);
+                return true;
+            });
+            stalePriority = 0;
+        }
+        if (staleTime > 0) {
+            timeHeap.removeIf(p -> {
+                if (p.getPriorityPos() != STALE) {
+                    return false;
+                }
+                p.setPriorityPos(0);
+                return true;
+            });
+            staleTime = 0;
+        }
+    }
+
+    /**
+     * Removes the stale entry a patient seen earlier has left in the other
+     * queue, before the patient is added again.
+     */
+    private void discardStale(Patient patient) {
+        try {
+            if (patient.getTimePos() == STALE) {
+                priorityHeap.remove(patient.getPriorityPos());
+                patient.setTimePos(0);
+                stalePriority--;
+            } else if (patient.getPriorityPos() == STALE) {
+                timeHeap.remove(patient.getTimePos());
+                patient.setPriorityPos(0);
+                staleTime--;
+            }
+        } catch (BoundaryViolationException ex) {
+            throw new IllegalStateException(ex); //cannot happen: the stale entry is where it was left
+        }
     }
 
    /**
-     * @return maximum wait time
+     * @param patientId patient ID
+     * @return the waiting patient with the given ID, or null if there is none
+     */
+    public Patient find(int patientId) {
+        return byID.get(patientId);
+    }
+
+   /**
+     * Removes a waiting patient who leaves without being seen, from both
+     * queues in place.  Cancelled patients are not reported to the metrics,
+     * which count patients seen.
+     * @param patientId patient ID
+     * @return the patient cancelled, or null if none with the given ID is waiting
+     */
+    public Patient cancel(int patientId) {
+        Patient patient = byID.remove(patientId);
+        if (patient == null) {
+            return null;
+        }
+        try {
+            priorityHeap.remove(patient.getPriorityPos());
+            timeHeap.remove(patient.getTimePos());
+        } catch (BoundaryViolationException ex) {
+            throw new IllegalStateException(ex); //cannot happen: a waiting patient is where their locators say
+        }
+        if (lazy) {
+            tidy();
+        }
+        return patient;
+    }
+
+  /**
+     * Removes the next n patients in queue, e.g. at shift change.  
+     * @param currentTime used to determine whether to use priority or arrival time
+     * @param n number of patients to remove
+     * @return the next n patients, or all patients if fewer are waiting, in
+     * the order remove would have returned them
+     * @throws NullPointerException if given null time
+     * @throws BoundaryViolationException if n is negative
+     */
+    public List<Patient> removeBatch(Time currentTime, int n) throws NullPointerException, BoundaryViolationException {
+        if (currentTime == null) {
+            throw new NullPointerException();
+        }
+        return removeBatch(EpochMinute.of(currentTime), n);
+    }
+
+  /**
+     * Removes the next n patients in queue.  
+     * @param now current time in epoch minutes
+     * @param n number of patients to remove
+     * @return the next n patients, or all patients if fewer are waiting, in
+     * the order remove would have returned them
+     * @throws BoundaryViolationException if n is negative
+     */
+    public List<Patient> removeBatch(long now, int n) throws BoundaryViolationException {
+        List<Patient> batch = new ArrayList<>(Math.max(0, Math.min(n, size())));
+        drainTo(batch, now, n);
+        return batch;
+    }
+
+  /**
+     * Removes up to max patients in queue into a collection.  
+     * @param c collection to add the patients to, in the order remove would
+     * have returned them
+     * @param currentTime used to determine whether to use priority or arrival time
+     * @param max largest number of patients to remove
+     * @return number of patients removed
+     * @throws NullPointerException if given null collection or time
+     * @throws BoundaryViolationException if max is negative
+     */
+    public int drainTo(Collection<? super Patient> c, Time currentTime, int max) throws NullPointerException, BoundaryViolationException {
+        if (currentTime == null) {
+            throw new NullPointerException();
+        }
+        return drainTo(c, EpochMinute.of(currentTime), max);
+    }
+
+  /**
+     * Removes up to max patients in queue into a collection.  Overdue
+     * patients are taken from the arrival queue first and their counterparts
+     * are then removed from the priority queue in one bulk pass; the rest are
+     * taken from the priority queue, with one bulk pass over the arrival
+     * queue.  Removing patients never makes others overdue, so once the head
+     * of the arrival queue is not overdue, the rest of the batch is in
+     * priority order.
+     * @param c collection to add the patients to, in the order remove would
+     * have returned them
+     * @param now current time in epoch minutes
+     * @param max largest number of patients to remove
+     * @return number of patients removed
+     * @throws NullPointerException if given null collection
+     * @throws BoundaryViolationException if max is negative
+     */
+    public int drainTo(Collection<? super Patient> c, long now, int max) throws NullPointerException, BoundaryViolationException {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (max < 0) {
+            throw new BoundaryViolationException();
+        }
+        if (lazy) {
+            int count = 0;
+            while (count < max && !priorityHeap.isEmpty()) {
+                c.add(take(now));
+                count++;
+            }
+            return count;
+        }
+        TriageMetrics m = metrics;
+        boolean measure = m != TriageMetrics.NO_OP;
+        long cutoff = now - maxWaitMinutes;
+        List<Patient> taken = new ArrayList<>();
+        long sifts = measure ? siftCount() : 0;
+        long start = measure ? System.nanoTime() : 0;
+        while (taken.size() < max && !timeHeap.isEmpty() && timeHeap.peek().getArrival() <= cutoff) {
+            taken.add(timeHeap.poll());
+        }
+        priorityHeap.removeAll(taken);
+        forget(taken);
+        if (measure) {
+            removed(m, taken, now, true, System.nanoTime() - start, siftCount() - sifts);
+            sifts = siftCount();
+            start = System.nanoTime();
+        }
+        c.addAll(taken);
+        int count = taken.size();
+        taken.clear();
+        while (count + taken.size() < max && !priorityHeap.isEmpty()) {
+            taken.add(priorityHeap.poll());
+        }
+        timeHeap.removeAll(taken);
+        forget(taken);
+        if (measure) {
+            removed(m, taken, now, false, System.nanoTime() - start, siftCount() - sifts);
+        }
+        c.addAll(taken);
+        return count + taken.size();
+    }
+
+    /**
+     * Drops patients taken from the queues from the map by ID.
+     */
+    private void forget(List<Patient> patients) {
+        for (Patient patient : patients) {
+            byID.remove(patient.getID(), patient);
+        }
+    }
+
+    /**
+     * @return levels moved in both queues so far
+     */
+    private long siftCount() {
+        return priorityHeap.getSiftCount() + timeHeap.getSiftCount();
+    }
+
+    /**
+     * Reports patients added in bulk, sharing the time and sifts among them.
+     */
+    private void added(TriageMetrics m, Collection<Patient> patients, long nanos, long sifts) {
+        int n = patients.size();
+        for (Patient patient : patients) {
+            m.added(patient, nanos / n, waiting(), sifts / n);
+        }
+    }
+
+    /**
+     * Reports patients removed in bulk, sharing the time and sifts among them.
+     */
+    private void removed(TriageMetrics m, List<Patient> patients, long now, boolean overdue, long nanos, long sifts) {
+        int n = patients.size();
+        for (Patient patient : patients) {
+            m.removed(patient, now, overdue, nanos / n, waiting(), sifts / n);
+        }
+    }
+
+    /**
+     * Moves the patients waiting in a queue onto a 4-ary heap, which keeps the
+     * cost of removing counterparts from the other queue down at depth.
+     *
+     * @param queue the queue to empty
+     * @param priority whether queue is the priority queue
+     * @return heap holding the patients
+     */
+    private APQ<Patient> toHeap(AdaptablePriorityQueue<Patient> queue, boolean priority) {
+        List<Patient> patients = new ArrayList<>(queue.size());
+        while (!queue.isEmpty()) {
+            patients.add(queue.poll());
+        }
+        if (priority) {
+            return new APQ<>(new PatientPriorityComparator(), new PatientPriorityLocator(), 4, patients);
+        }
+        return new APQ<>(new PatientTimeComparator(), new PatientTimeLocator(), 4, patients);
+    }
+
+    /**
+     * @param engine the engine of the queue
+     * @param priority whether to keep priority order, else arrival order
+     * @return an empty queue
+     */
+    private static AdaptablePriorityQueue<Patient> newQueue(Engine engine, boolean priority) {
+        switch (engine) {
+            case BUCKETS:
+                return new BucketQueue<>(new PatientPriorityKey(), new PatientPriorityLocator(), BucketQueue.MAX_LEVELS);
+            case FIFO:
+                return new ArrivalQueue<>(new PatientTimeComparator(), new PatientTimeLocator());
+            case KEYED_HEAP:
+                if (priority) {
+                    return new KeyedAPQ<>(new PatientPriorityKey(), new PatientPriorityLocator(), 4);
+                }
+                return new KeyedAPQ<>(new PatientTimeKey(), new PatientTimeLocator(), 4);
+            case PAIRING_HEAP:
+                if (priority) {
+                    return new PairingHeap<>(new PatientPriorityKey(), new PatientPriorityLocator());
+                }
+                return new PairingHeap<>(new PatientTimeKey(), new PatientTimeLocator());
+            case RADIX_HEAP:
+                return new RadixHeap<>(new PatientTimeKey(), new PatientTimeLocator());
+            default:
+                if (priority) {
+                    return new APQ<>(new PatientPriorityComparator(), new PatientPriorityLocator(), 4);
+                }
+                return new APQ<>(new PatientTimeComparator(), new PatientTimeLocator(), 4);
+        }
+    }
+
+   /**
+     * @return patient first in priority order, or null if none are waiting
+     */
+    public Patient peekByPriority() {
+        return priorityHeap.peek();
+    }
+
+   /**
+     * @return patient who has waited longest, or null if none are waiting
+     */
+    public Patient peekByArrival() {
+        return timeHeap.peek();
+    }
+
+   /**
+     * @return time in epoch minutes at which the patient who has waited longest
+     * becomes overdue, or Long.MAX_VALUE if none are waiting or the deadline
+     * lies beyond it
+     */
+    public long nextDeadline() {
+        Patient first = timeHeap.peek();
+        if (first == null) {
+            return Long.MAX_VALUE;
+        }
+        long deadline = first.getArrival() + maxWaitMinutes;
+        return deadline < maxWaitMinutes ? Long.MAX_VALUE : deadline; //saturate on overflow
+    }
+
+   /**
+     * Lists the patients first in priority order without removing them,
+     * walking the priority queue best first: O(k log k) time on a d-ary heap,
+     * O(k) in buckets, whatever the number waiting.  A pairing heap also
+     * reads the children of each patient listed.  Overdue patients are listed
+     * by priority like the rest.
+     * @param k number of patients to list
+     * @return the first k patients in priority order, or all patients if
+     * fewer are waiting
+     * @throws BoundaryViolationException if k is negative
+     */
+    public List<Patient> topK(int k) throws BoundaryViolationException {
+        if (k < 0) {
+            throw new BoundaryViolationException();
+        }
+        List<Patient> top = new ArrayList<>(Math.min(k, waiting()));
+        if (k == 0) {
+            return top;
+        }
+        priorityHeap.forEachInOrder(patient -> {
+            if (patient.getTimePos() != STALE) { //skip stale entries
+                top.add(patient);
+            }
+            return top.size() < k;
+        });
+        return top;
+    }
+
+   /**
+     * Lists the overdue patients without removing them.
+     * @param now current time
+     * @return the patients who have waited maxWait or longer, longest first
+     * @throws NullPointerException if given null time
+     */
+    public List<Patient> overdue(Time now) throws NullPointerException {
+        if (now == null) {
+            throw new NullPointerException();
+        }
+        return overdue(EpochMinute.of(now));
+    }
+
+   /**
+     * Lists the overdue patients without removing them, walking the arrival
+     * queue in order and stopping at the first patient who is not overdue.
+     * @param now current time in epoch minutes
+     * @return the patients who have waited maxWait or longer, longest first
+     */
+    public List<Patient> overdue(long now) {
+        long cutoff = now - maxWaitMinutes; //patients arriving by cutoff are overdue
+        List<Patient> overdue = new ArrayList<>();
+        timeHeap.forEachInOrder(patient -> {
+            if (patient.getArrival() > cutoff) {
+                return false;
+            }
+            if (patient.getPriorityPos() != STALE) { //skip stale entries
+                overdue.add(patient);
+            }
+            return true;
+        });
+        return overdue;
+    }
+
+   /**
+     * @return the heads and size as one snapshot.  ConcurrentPatientTriage
+     * and CombiningPatientTriage publish a census on each mutation and
+     * return it without locking or allocating; here it is built on each call.
+     */
+    public TriageCensus getCensus() {
+        return new TriageCensus(peekByPriority(), peekByArrival(), size());
+    }
+
+   /**
+     * @return number of patients waiting
+     */
+    public int size() {
+        return waiting();
+    }
+
+    private int waiting() {
+        return priorityHeap.size() - stalePriority;
+    }
+
+   /**
+     * @return number of stale entries held for patients already seen, in
+     * lazy deletion mode; each holds a reference in one queue until discarded
+     */
+    public int getStaleCount() {
+        return stalePriority + staleTime;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+   /**
+     * Removes all patients, e.g. to reuse the triage for another run.  The
+     * queues keep the space they have grown to; a queue that had moved onto
+     * a heap goes back to its engine, as in a new triage.  maxWait and
+     * metrics are unchanged.
+     */
+    public void clear() {
+        compact(); //unmark the patients seen, who may be added again
+        byID.clear();
+        if (priorityHeap instanceof APQ && priorityEngine != Engine.DARY_HEAP) {
+            priorityHeap = newQueue(priorityEngine, true);
+        } else {
+            priorityHeap.clear();
+        }
+        if (timeHeap instanceof APQ && arrivalEngine != Engine.DARY_HEAP) {
+            timeHeap = newQueue(arrivalEngine, false);
+        } else {
+            timeHeap.clear();
+        }
+    }
+
+   /**
+     * @return the metrics told of each add and remove
+     */
+    public TriageMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set the metrics to tell of each add and remove, or TriageMetrics.NO_OP
+     * to stop measuring
+     *
+     * @param metrics - the metrics
+     * @throws NullPointerException if given null metrics
+     */
+    public void setMetrics(TriageMetrics metrics) throws NullPointerException {
+        if (metrics == null) {
+            throw new NullPointerException();
+        }
+        this.metrics = metrics;
+    }
+
+   /**
+     * @return maximum wait time, or null if it is 24 hours or more
      */
     public Time getMaxWait() {
         return maxWait;
     }
 
+   /**
+     * @return maximum wait time in minutes
+     */
+    public long getMaxWaitMinutes() {
+        return maxWaitMinutes;
+    }
+
     /**
      * Set the maximum wait time
      *
@@ -91,6 +950,21 @@ public class PatientTriage {
             throw new NullPointerException();
         }
         maxWait = time;
+        maxWaitMinutes = EpochMinute.of(time);
+    }
+
+    /**
+     * Set the maximum wait time, which may be 24 hours or more
+     *
+     * @param minutes - the maximum wait time in minutes
+     * @throws BoundaryViolationException if minutes is negative
+     */
+    public void setMaxWait(long minutes) throws BoundaryViolationException {
+        if (minutes < 0) {
+            throw new BoundaryViolationException();
+        }
+        maxWait = minutes < EpochMinute.MINUTES_PER_DAY ? EpochMinute.toTime(minutes) : null;
+        maxWaitMinutes = minutes;
     }
 
 }
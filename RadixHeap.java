@@ -0,0 +1,370 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Monotone adaptable priority queue for non-negative long keys that never
+ * fall below the first key in the queue, such as arrival times.  Entries are
+ * kept in 64 FIFO lists of linked slots: list 0 holds the entries whose key
+ * equals the first key, and list b the entries whose key first differs from
+ * it in bit b-1.  Offer and remove take constant time; when list 0 empties,
+ * the first non-empty list is redistributed into lower lists around its
+ * smallest key, so each entry moves down at most 64 times and poll takes
+ * amortized constant time for keys of bounded width.  List 0 is refilled
+ * as soon as it empties, so peek only reads.  Entries with equal keys are
+ * returned in the order in which they were added.  The location reported
+ * through the Locator is the slot holding the entry, which does not change
+ * while the entry is queued.  The key of each entry is read when it is
+ * offered or updated.
+ *
+ * @param <E> The entry type.
+ */
+public class RadixHeap<E> implements AdaptablePriorityQueue<E> {
+
+    private static final int LISTS = 64; //list 0 and one per bit of a non-negative long
+
+    private final LinkedSlots<E> slots = new LinkedSlots<>(LISTS);
+    private long[] keys = new long[16]; //key of the entry in each slot
+    private long first; //the first key in the queue, when it is not empty
+    private long nonEmpty; //bit b is set if list b holds entries
+    private long moves; //entries moved down a list, for metrics
+    private final KeyExtractor<E> key; //to key the entries
+    private final Locator<E> locator; //to locate the entries within the queue
+
+    /**
+     * Constructor
+     * @param key used to key the entries, which must not be negative
+     * @param locator used to locate the entries in the queue
+     * @throws NullPointerException if key or locator parameters are null
+     */
+    public RadixHeap(KeyExtractor<E> key, Locator<E> locator) throws NullPointerException {
+        if (key == null || locator == null) {
+            throw new NullPointerException();
+        }
+        this.key = key;
+        this.locator = locator;
+    }
+
+    /**
+     * @param e the entry to test
+     * @return true if the key of e is not negative and not below the first
+     * key in the queue
+     */
+    public boolean accepts(E e) {
+        long k = key.getKey(e);
+        return k >= 0 && (isEmpty() || k >= first);
+    }
+
+    /**
+     * @param entries the entries to test
+     * @return true if the keys of all the entries are not negative and not
+     * below the first key in the queue
+     */
+    public boolean acceptsAll(Collection<? extends E> entries) {
+        for (E e : entries) {
+            if (!accepts(e)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the specified entry into this priority queue, appending it to
+     * the list for its key in constant time.
+     *
+     * @param e the entry to insert
+     * @throws NullPointerException if parameter e is null
+     * @throws IllegalArgumentException if the key of e is negative or below
+     * the first key in the queue
+     */
+    public void offer(E e) throws NullPointerException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!accepts(e)) {
+            throw new IllegalArgumentException("key below the first key");
+        }
+        long k = key.getKey(e);
+        if (isEmpty()) {
+            first = k;
+        }
+        append(e, k);
+    }
+
+    /**
+     * Inserts all of the specified entries into this priority queue.  Into an
+     * empty queue the entries may come in any order.
+     *
+     * @param entries the entries to insert
+     * @throws NullPointerException if entries or any entry is null
+     * @throws IllegalArgumentException if the key of any entry is negative or
+     * below the first key in the queue
+     */
+    public void addAll(Collection<? extends E> entries) throws NullPointerException {
+        long least = Long.MAX_VALUE;
+        for (E e : entries) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            least = Math.min(least, key.getKey(e));
+        }
+        if (!acceptsAll(entries)) {
+            throw new IllegalArgumentException("key below the first key");
+        }
+        if (isEmpty()) {
+            first = least;
+        }
+        for (E e : entries) {
+            append(e, key.getKey(e));
+        }
+    }
+
+    /**
+     * Moves an entry whose key has changed to the back of the list for its
+     * new key, even if the key is unchanged.
+     *
+     * @param e the entry whose key has changed
+     * @throws NullPointerException if parameter e is null
+     * @throws BoundaryViolationException if e is not at its reported location
+     * @throws IllegalArgumentException if the new key of e is negative, or
+     * below the first key of the other entries
+     */
+    public void update(E e) throws NullPointerException, BoundaryViolationException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int pos = locator.get(e);
+        if (!slots.contains(pos) || slots.get(pos) != e) {
+            throw new BoundaryViolationException();
+        }
+        long k = key.getKey(e);
+        if (k >= 0 && size() == 1) {
+            first = k;
+        }
+        if (k < 0 || k < first) {
+            throw new IllegalArgumentException("key below the first key");
+        }
+        int from = slots.listOf(pos);
+        int to = list(k);
+        keys[pos] = k;
+        slots.moveTo(pos, to);
+        nonEmpty |= 1L << to;
+        emptied(from);
+    }
+
+    /**
+     * Removes the entry at the specified location.
+     *
+     * @param pos the location of the entry to remove
+     * @throws BoundaryViolationException if pos does not hold an entry
+     */
+    public void remove(int pos) throws BoundaryViolationException {
+        if (!slots.contains(pos)) {
+            throw new BoundaryViolationException();
+        }
+        unlink(pos);
+    }
+
+    /**
+     * Removes all of the specified entries, which must be distinct and in the
+     * queue, unlinking each in constant time.
+     *
+     * @param entries the entries to remove
+     * @throws NullPointerException if entries or any entry is null
+     * @throws BoundaryViolationException if an entry is not at its reported location
+     */
+    public void removeAll(Collection<? extends E> entries) throws NullPointerException, BoundaryViolationException {
+        for (E e : entries) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            int pos = locator.get(e);
+            if (!slots.contains(pos) || slots.get(pos) != e) {
+                throw new BoundaryViolationException();
+            }
+        }
+        for (E e : entries) {
+            unlink(locator.get(e));
+        }
+    }
+
+    /**
+     * Removes every entry that satisfies filter, walking the lists in linear
+     * time.
+     */
+    public boolean removeIf(Predicate<? super E> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException();
+        }
+        int before = size();
+        for (long bits = nonEmpty; bits != 0; bits &= bits - 1) {
+            int list = Long.numberOfTrailingZeros(bits);
+            int slot = slots.head(list);
+            while (slot != 0) {
+                int next = slots.next(slot);
+                if (filter.test(slots.get(slot))) {
+                    slots.unlink(slot); //refill list 0 only once every list has been walked
+                }
+                slot = next;
+            }
+            if (slots.isEmpty(list)) {
+                nonEmpty &= ~(1L << list);
+            }
+        }
+        refill();
+        return size() < before;
+    }
+
+    /**
+     * Removes the first entry in the priority queue.
+     */
+    public E poll() {
+        if (isEmpty()) {
+            return null;
+        }
+        return unlink(slots.head(0));
+    }
+
+    /**
+     * Returns but does not remove the first entry in the priority queue.
+     */
+    public E peek() {
+        if (isEmpty()) {
+            return null;
+        }
+        return slots.get(slots.head(0));
+    }
+
+    /**
+     * Returns the entries in the order in which repeated polls would return
+     * them, sorting each list by key; the lists are in order of key, and
+     * equal keys are in order within a list.
+     */
+    public List<E> toList() {
+        List<E> list = new ArrayList<>(size());
+        forEachInOrder(list::add);
+        return list;
+    }
+
+    /**
+     * Visits the entries in order.  List 0 holds equal keys and is walked
+     * as it stands; each later list reached is sorted by key first, which
+     * takes m log m time for a list of m entries.
+     */
+    public void forEachInOrder(Predicate<? super E> visitor) throws NullPointerException {
+        if (visitor == null) {
+            throw new NullPointerException();
+        }
+        List<Integer> order = new ArrayList<>();
+        for (long bits = nonEmpty; bits != 0; bits &= bits - 1) {
+            int list = Long.numberOfTrailingZeros(bits);
+            if (list == 0) {
+                for (int slot = slots.head(0); slot != 0; slot = slots.next(slot)) {
+                    if (!visitor.test(slots.get(slot))) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            order.clear();
+            for (int slot = slots.head(list); slot != 0; slot = slots.next(slot)) {
+                order.add(slot);
+            }
+            order.sort((a, b) -> Long.compare(keys[a], keys[b])); //stable
+            for (int slot : order) {
+                if (!visitor.test(slots.get(slot))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        slots.clear();
+        nonEmpty = 0;
+    }
+
+    /**
+     * Returns the number of times entries have moved down a list since the
+     * queue was created.
+     */
+    public long getSiftCount() {
+        return moves;
+    }
+
+    public boolean isEmpty() {
+        return nonEmpty == 0;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * @return the list for key k: 0 if k is the first key, else one more than
+     * the highest bit in which k differs from it
+     */
+    private int list(long k) {
+        return 64 - Long.numberOfLeadingZeros(k ^ first);
+    }
+
+    private void append(E e, long k) {
+        int list = list(k);
+        int slot = slots.append(list, e);
+        if (slot >= keys.length) {
+            keys = Arrays.copyOf(keys, 2 * keys.length);
+        }
+        keys[slot] = k;
+        nonEmpty |= 1L << list;
+        locator.set(e, slot);
+    }
+
+    private E unlink(int slot) {
+        int list = slots.listOf(slot);
+        E e = slots.unlink(slot);
+        emptied(list);
+        return e;
+    }
+
+    /**
+     * Clears the bit of a list that may have emptied, refilling list 0.
+     */
+    private void emptied(int list) {
+        if (slots.isEmpty(list)) {
+            nonEmpty &= ~(1L << list);
+            if (list == 0) {
+                refill();
+            }
+        }
+    }
+
+    /**
+     * Refills list 0 if it is empty while other lists are not: the first
+     * non-empty list is redistributed around its smallest key, which becomes
+     * the first key.  Every other list keeps its entries, as they differ from
+     * the new first key in the same bit as from the old.
+     */
+    private void refill() {
+        if (nonEmpty == 0 || !slots.isEmpty(0)) {
+            return;
+        }
+        int from = Long.numberOfTrailingZeros(nonEmpty);
+        long least = Long.MAX_VALUE;
+        for (int slot = slots.head(from); slot != 0; slot = slots.next(slot)) {
+            least = Math.min(least, keys[slot]);
+        }
+        first = least;
+        int slot = slots.head(from);
+        while (slot != 0) {
+            int next = slots.next(slot);
+            int to = list(keys[slot]);
+            slots.moveTo(slot, to);
+            nonEmpty |= 1L << to;
+            moves++;
+            slot = next;
+        }
+        nonEmpty &= ~(1L << from);
+    }
+}
@@ -0,0 +1,251 @@
+package A2Q2;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Triages patients across independent PatientTriage shards, partitioned by
+ * ward or by patient ID, so that intake on different shards proceeds in
+ * parallel.  Removal follows the same rule as PatientTriage over all shards:
+ * if the patient who has waited longest anywhere has waited longer than
+ * maxWait, they are seen first, otherwise the patient first in priority
+ * order anywhere is seen.  The heads of the shards are kept in two small
+ * tournament trees, one by arrival time and one by priority; a shard whose
+ * heads may have changed is marked dirty and replayed on the next removal.
+ */
+public class ShardedPatientTriage {
+
+    public static final int MAX_SHARDS = 64; //one bit per shard in the dirty mask
+
+    private final ConcurrentPatientTriage[] shards;
+    private final AtomicLong dirty = new AtomicLong(); //bit s is set if shard s has changed
+    private final WinnerTree byArrival; //shard heads keyed by arrival time
+    private final WinnerTree byPriority; //shard heads keyed by priority, then arrival time
+    private final Object removeLock = new Object(); //serializes removals and the trees
+    private volatile Time maxWait; //null if 24 hours or more
+    private volatile long maxWaitMinutes;
+
+    /**
+     * Constructor
+     *
+     * @param time Maximum wait time.  Patients waiting longer than this are seen first.
+     * @param shards number of shards, at most MAX_SHARDS
+     * @throws NullPointerException if given null time
+     * @throws IllegalArgumentException if shards is out of range
+     */
+    public ShardedPatientTriage(Time time, int shards) throws NullPointerException {
+        if (time == null) {
+            throw new NullPointerException();
+        }
+        if (shards < 1 || shards > MAX_SHARDS) {
+            throw new IllegalArgumentException("shards out of range");
+        }
+        this.shards = new ConcurrentPatientTriage[shards];
+        for (int s = 0; s < shards; s++) {
+            this.shards[s] = new ConcurrentPatientTriage(time);
+        }
+        byArrival = new WinnerTree(shards);
+        byPriority = new WinnerTree(shards);
+        maxWait = time;
+        maxWaitMinutes = EpochMinute.of(time);
+    }
+
+   /**
+     * Adds patient to the shard chosen by patient ID.
+     * @param patient to add.
+     * @throws NullPointerException if given null patient
+     */
+    public void add(Patient patient) throws NullPointerException {
+        if (patient == null) {
+            throw new NullPointerException();
+        }
+        add(patient, patient.getID() * 0x9E3779B9); //spread consecutive IDs
+    }
+
+   /**
+     * Adds patient to the shard for a ward.
+     * @param patient to add.
+     * @param ward any integer; wards are mapped onto shards by remainder
+     * @throws NullPointerException if given null patient
+     */
+    public void add(Patient patient, int ward) throws NullPointerException {
+        int s = Math.floorMod(ward, shards.length);
+        shards[s].add(patient);
+        markDirty(s);
+    }
+
+  /**
+     * Removes next patient across all shards.
+     * @param currentTime used to determine whether to use priority or arrival time
+     * @return Next patient to attend to
+     * @throws NullPointerException if given null time
+     * @throws EmptyQueueException if every shard is empty
+     * @throws BoundaryViolationException under some internal error conditions
+     */
+    public Patient remove(Time currentTime) throws NullPointerException, EmptyQueueException, BoundaryViolationException {
+        if (currentTime == null) {
+            throw new NullPointerException();
+        }
+        return remove(EpochMinute.of(currentTime));
+    }
+
+  /**
+     * Removes next patient across all shards.
+     * @param now current time in epoch minutes, used to determine whether to use priority or arrival time
+     * @return Next patient to attend to
+     * @throws EmptyQueueException if every shard is empty
+     * @throws BoundaryViolationException under some internal error conditions
+     */
+    public Patient remove(long now) throws EmptyQueueException, BoundaryViolationException {
+        synchronized (removeLock) {
+            long changed = dirty.getAndSet(0);
+            while (changed != 0) {
+                refresh(Long.numberOfTrailingZeros(changed));
+                changed &= changed - 1;
+            }
+            int first = byArrival.winner();
+            if (byArrival.key(first) == Long.MAX_VALUE) {
+                throw new EmptyQueueException();
+            }
+            int s;
+            if (byArrival.key(first) <= now - maxWaitMinutes) {
+                s = first; //the longest wait anywhere is overdue
+            } else {
+                s = byPriority.winner();
+            }
+            Patient patient = shards[s].remove(now);
+            refresh(s);
+            return patient;
+        }
+    }
+
+   /**
+     * @param patientId patient ID
+     * @return the waiting patient with the given ID in any shard, or null if
+     * there is none; the shard chosen by ID is searched first
+     */
+    public Patient find(int patientId) {
+        int first = Math.floorMod(patientId * 0x9E3779B9, shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int s = (first + i) % shards.length;
+            Patient patient = shards[s].find(patientId);
+            if (patient != null) {
+                return patient;
+            }
+        }
+        return null;
+    }
+
+   /**
+     * Removes a waiting patient who leaves without being seen, from whichever
+     * shard holds them; the shard chosen by ID is searched first.  Like a
+     * removal this holds removeLock, so that a removal never picks a shard
+     * whose head has just been cancelled.
+     * @param patientId patient ID
+     * @return the patient cancelled, or null if none with the given ID is waiting
+     */
+    public Patient cancel(int patientId) {
+        int first = Math.floorMod(patientId * 0x9E3779B9, shards.length);
+        synchronized (removeLock) {
+            for (int i = 0; i < shards.length; i++) {
+                int s = (first + i) % shards.length;
+                Patient patient = shards[s].cancel(patientId);
+                if (patient != null) {
+                    refresh(s);
+                    return patient;
+                }
+            }
+        }
+        return null;
+    }
+
+   /**
+     * @return number of patients waiting in all shards
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentPatientTriage shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+   /**
+     * @return maximum wait time, or null if it is 24 hours or more
+     */
+    public Time getMaxWait() {
+        return maxWait;
+    }
+
+   /**
+     * @return maximum wait time in minutes
+     */
+    public long getMaxWaitMinutes() {
+        return maxWaitMinutes;
+    }
+
+    /**
+     * Set the maximum wait time in every shard
+     *
+     * @param time - the maximum wait time
+     * @throws NullPointerException if given null time
+     */
+    public void setMaxWait(Time time) throws NullPointerException {
+        if (time == null) {
+            throw new NullPointerException();
+        }
+        synchronized (removeLock) {
+            for (ConcurrentPatientTriage shard : shards) {
+                shard.setMaxWait(time);
+            }
+            maxWait = time;
+            maxWaitMinutes = EpochMinute.of(time);
+        }
+    }
+
+    /**
+     * Set the maximum wait time in every shard, which may be 24 hours or more
+     *
+     * @param minutes - the maximum wait time in minutes
+     * @throws BoundaryViolationException if minutes is negative
+     */
+    public void setMaxWait(long minutes) throws BoundaryViolationException {
+        synchronized (removeLock) {
+            for (ConcurrentPatientTriage shard : shards) {
+                shard.setMaxWait(minutes);
+            }
+            maxWait = shards[0].getMaxWait();
+            maxWaitMinutes = minutes;
+        }
+    }
+
+    private void markDirty(int s) {
+        long bit = 1L << s;
+        long d;
+        do {
+            d = dirty.get();
+        } while ((d & bit) == 0 && !dirty.compareAndSet(d, d | bit));
+    }
+
+    /**
+     * Replays the heads of shard s in both trees.  Called holding removeLock.
+     */
+    private void refresh(int s) {
+        TriageCensus census = shards[s].getCensus(); //both heads as of one mutation
+        Patient first = census.peekByArrival();
+        Patient next = census.peekByPriority();
+        byArrival.update(s, first == null ? Long.MAX_VALUE : first.getArrival(), 0);
+        if (next == null) {
+            byPriority.update(s, Long.MAX_VALUE, 0);
+        } else {
+            byPriority.update(s, next.getPriority(), next.getArrival());
+        }
+    }
+}
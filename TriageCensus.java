@@ -0,0 +1,67 @@
+package A2Q2;
+
+/**
+ * Immutable snapshot of a PatientTriage for waiting-room displays: the
+ * patient first in priority order, the patient who has waited longest and
+ * the number waiting, all taken at the same moment.  The patients themselves
+ * are shared with the triage, so their priority may since have changed.
+ */
+public final class TriageCensus {
+
+    /** census of an empty triage */
+    public static final TriageCensus EMPTY = new TriageCensus(null, null, 0);
+
+    private final Patient priorityHead;
+    private final Patient arrivalHead;
+    private final int size;
+
+    /**
+     * Constructor
+     *
+     * @param priorityHead patient first in priority order, or null if none are waiting
+     * @param arrivalHead patient who has waited longest, or null if none are waiting
+     * @param size number of patients waiting
+     */
+    public TriageCensus(Patient priorityHead, Patient arrivalHead, int size) {
+        this.priorityHead = priorityHead;
+        this.arrivalHead = arrivalHead;
+        this.size = size;
+    }
+
+    /**
+     * @return patient first in priority order, or null if none were waiting
+     */
+    public Patient peekByPriority() {
+        return priorityHead;
+    }
+
+    /**
+     * @return patient who had waited longest, or null if none were waiting
+     */
+    public Patient peekByArrival() {
+        return arrivalHead;
+    }
+
+    /**
+     * @return number of patients waiting
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return whether this census shows the given heads and size, so that
+     * publishing a new one can be skipped
+     */
+    boolean shows(Patient priorityHead, Patient arrivalHead, int size) {
+        return this.priorityHead == priorityHead && this.arrivalHead == arrivalHead && this.size == size;
+    }
+
+    public String toString() {
+        return "waiting " + size + ", next " + priorityHead + ", longest " + arrivalHead;
+    }
+}
@@ -0,0 +1,492 @@
+package A2Q2;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Feeds a stream of admission events into a PatientTriage and passes every
+ * patient it selects to a Sink.  Three events are understood:
+ * <pre>
+ *   A id priority arrival    a patient arrives (arrival in epoch minutes)
+ *   R id priority            a waiting patient is re-triaged
+ *   S now                    the next patient is seen at time now
+ * </pre>
+ * In TEXT format each event is a line of ASCII fields separated by spaces or
+ * tabs; blank lines and lines starting with # are skipped.  In BINARY format
+ * each event is the op byte followed by its fields as big-endian ints, with
+ * times as longs.
+ * The calling thread reads and parses the stream into batches of primitive
+ * arrays, without creating objects per event, and hands them over a bounded
+ * queue to a worker thread that applies them to the triage: runs of arrivals
+ * with addAll and runs of patients seen at the same time with drainTo.  When
+ * the worker falls behind the queue fills and reading stops, which pushes
+ * back on a pipe.  Batches are recycled.  Malformed events, re-triage of
+ * patients not waiting and patients seen from an empty waiting room are
+ * counted as rejected and skipped.  Re-triage finds patients by ID with
+ * PatientTriage.find.
+ */
+public class TriageIngester {
+
+    /**
+     * Receives the patients selected by the triage, in order.
+     */
+    public interface Sink {
+        public void seen(Patient patient, long now) throws IOException;
+    }
+
+    public enum Format { TEXT, BINARY }
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    public static final int DEFAULT_QUEUED_BATCHES = 16;
+
+    private static final byte ARRIVE = 'A';
+    private static final byte RETRIAGE = 'R';
+    private static final byte SEEN = 'S';
+
+    /**
+     * A batch of parsed events, in parallel arrays.
+     */
+    private static final class Batch {
+        final byte[] ops;
+        final int[] ids;
+        final int[] priorities;
+        final long[] times;
+        int size;
+
+        Batch(int capacity) {
+            ops = new byte[capacity];
+            ids = new int[capacity];
+            priorities = new int[capacity];
+            times = new long[capacity];
+        }
+    }
+
+    private static final Batch END = new Batch(0); //marks the end of the stream
+
+    private final PatientTriage triage;
+    private final Sink sink;
+    private final Format format;
+    private final BlockingQueue<Batch> full; //parsed batches waiting for the worker
+    private final BlockingQueue<Batch> empty; //batches ready for reuse
+    private final List<Patient> run = new ArrayList<>(); //arrivals or seen patients applied together
+    private final long[] fields = new long[3]; //fields of the line being parsed
+    private Batch filling; //the batch the reader is filling
+    private volatile Throwable failure; //thrown by the worker or the sink
+
+    //counts kept by the reader, and published after each read
+    private long bytesRead;
+    private long eventsRead;
+    private long malformedRead;
+
+    //throughput counters, each written by one thread
+    private volatile long bytes;
+    private volatile long events;
+    private volatile long malformed;
+    private volatile long arrivals;
+    private volatile long retriages;
+    private volatile long seen;
+    private volatile long rejected; //by the triage
+    private volatile long batches;
+    private volatile long stalls; //batches the reader had to wait to hand over
+    private volatile long nanos;
+
+    /**
+     * Constructor
+     *
+     * @param triage the triage to feed
+     * @param sink receives the patients selected
+     * @param format the format of the stream
+     * @throws NullPointerException if any parameter is null
+     */
+    public TriageIngester(PatientTriage triage, Sink sink, Format format) throws NullPointerException {
+        this(triage, sink, format, DEFAULT_BATCH_SIZE, DEFAULT_QUEUED_BATCHES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param triage the triage to feed
+     * @param sink receives the patients selected
+     * @param format the format of the stream
+     * @param batchSize most events applied together
+     * @param queuedBatches most batches parsed ahead of the triage
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if batchSize or queuedBatches is less than 1
+     */
+    public TriageIngester(PatientTriage triage, Sink sink, Format format, int batchSize, int queuedBatches) throws NullPointerException {
+        if (triage == null || sink == null || format == null) {
+            throw new NullPointerException();
+        }
+        if (batchSize < 1 || queuedBatches < 1) {
+            throw new IllegalArgumentException("batch sizes out of range");
+        }
+        this.triage = triage;
+        this.sink = sink;
+        this.format = format;
+        full = new ArrayBlockingQueue<>(queuedBatches + 1);
+        empty = new ArrayBlockingQueue<>(queuedBatches + 1);
+        for (int i = 0; i <= queuedBatches; i++) {
+            empty.add(new Batch(batchSize));
+        }
+    }
+
+    /**
+     * Reads the stream to its end, applying every event to the triage.
+     * Patients still waiting at the end stay in the triage, and can be
+     * re-triaged by a later run.
+     *
+     * @param in the event stream
+     * @throws NullPointerException if in is null
+     * @throws IOException if the stream cannot be read or the sink fails
+     * @throws InterruptedException if interrupted while waiting for the worker
+     */
+    public void run(InputStream in) throws NullPointerException, IOException, InterruptedException {
+        if (in == null) {
+            throw new NullPointerException();
+        }
+        failure = null;
+        Thread worker = new Thread(this::apply, "TriageIngester");
+        worker.setDaemon(true);
+        long start = System.nanoTime();
+        worker.start();
+        try {
+            filling = take();
+            if (format == Format.TEXT) {
+                readText(in);
+            } else {
+                readBinary(in);
+            }
+        } finally {
+            publish();
+            if (filling != null) {
+                if (filling.size > 0) {
+                    hand(filling);
+                } else {
+                    empty.add(filling);
+                }
+                filling = null;
+            }
+            hand(END);
+            worker.join();
+            nanos += System.nanoTime() - start;
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    /**
+     * @return bytes read
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return events read, including rejected ones
+     */
+    public long getEvents() {
+        return events;
+    }
+
+    public long getArrivals() {
+        return arrivals;
+    }
+
+    public long getRetriages() {
+        return retriages;
+    }
+
+    /**
+     * @return patients passed to the sink
+     */
+    public long getSeen() {
+        return seen;
+    }
+
+    /**
+     * @return events that were malformed, or that the triage could not apply
+     */
+    public long getRejected() {
+        return malformed + rejected;
+    }
+
+    /**
+     * @return batches applied to the triage
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return batches the reader had to wait to hand over, as the triage fell behind
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * @return events read per second over the runs so far
+     */
+    public double getEventsPerSecond() {
+        long time = nanos;
+        return time == 0 ? 0 : events * 1e9 / time;
+    }
+
+    /**
+     * Parses lines of text, keeping an incomplete line at the end of the
+     * buffer for the next read.
+     */
+    private void readText(InputStream in) throws IOException, InterruptedException {
+        byte[] buffer = new byte[1 << 16];
+        int length = 0;
+        int n;
+        while (failure == null && (n = in.read(buffer, length, buffer.length - length)) >= 0) {
+            bytesRead += n;
+            length += n;
+            int line = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    parseLine(buffer, line, i);
+                    line = i + 1;
+                }
+            }
+            if (line == 0 && length == buffer.length) { //overlong line
+                eventsRead++;
+                malformedRead++;
+                while ((n = in.read()) >= 0 && n != '\n') {
+                    bytesRead++;
+                }
+                line = length;
+            }
+            System.arraycopy(buffer, line, buffer, 0, length - line);
+            length -= line;
+            publish();
+        }
+        if (length > 0) {
+            parseLine(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Parses the line in buffer from start up to end into the batch.
+     */
+    private void parseLine(byte[] buffer, int start, int end) throws InterruptedException {
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        int i = skip(buffer, start, end);
+        if (i == end || buffer[i] == '#') {
+            return;
+        }
+        eventsRead++;
+        byte op = buffer[i++];
+        int expected = op == ARRIVE ? 3 : op == RETRIAGE ? 2 : op == SEEN ? 1 : -1;
+        int count = 0;
+        while (expected > 0 && (i = skip(buffer, i, end)) < end) {
+            long value = 0;
+            int digits = 0;
+            while (i < end && buffer[i] >= '0' && buffer[i] <= '9' && digits < 18) {
+                value = 10 * value + (buffer[i++] - '0');
+                digits++;
+            }
+            if (count == expected || digits == 0 || (i < end && buffer[i] != ' ' && buffer[i] != '\t')) {
+                count = -1;
+                break;
+            }
+            fields[count++] = value;
+        }
+        if (count != expected) {
+            malformedRead++;
+        } else if (op == SEEN) {
+            add(op, 0, 0, fields[0]);
+        } else if (fields[0] > Integer.MAX_VALUE || fields[1] > Integer.MAX_VALUE) {
+            malformedRead++;
+        } else {
+            add(op, (int) fields[0], (int) fields[1], op == ARRIVE ? fields[2] : 0);
+        }
+    }
+
+    /**
+     * @return the first index from i that is not a space or tab
+     */
+    private static int skip(byte[] buffer, int i, int end) {
+        while (i < end && (buffer[i] == ' ' || buffer[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Parses binary records, keeping an incomplete record at the end of the
+     * buffer for the next read.
+     */
+    private void readBinary(InputStream in) throws IOException, InterruptedException {
+        byte[] buffer = new byte[1 << 16];
+        int length = 0;
+        int n;
+        while (failure == null && (n = in.read(buffer, length, buffer.length - length)) >= 0) {
+            bytesRead += n;
+            length += n;
+            int i = 0;
+            while (i < length) {
+                byte op = buffer[i];
+                int record = op == ARRIVE ? 17 : op == RETRIAGE || op == SEEN ? 9 : 1;
+                if (length - i < record) {
+                    break;
+                }
+                eventsRead++;
+                if (op == ARRIVE) {
+                    add(op, getInt(buffer, i + 1), getInt(buffer, i + 5), getLong(buffer, i + 9));
+                } else if (op == RETRIAGE) {
+                    add(op, getInt(buffer, i + 1), getInt(buffer, i + 5), 0);
+                } else if (op == SEEN) {
+                    add(op, 0, 0, getLong(buffer, i + 1));
+                } else {
+                    malformedRead++;
+                }
+                i += record;
+            }
+            System.arraycopy(buffer, i, buffer, 0, length - i);
+            length -= i;
+            publish();
+        }
+        if (length > 0) { //truncated last record
+            eventsRead++;
+            malformedRead++;
+        }
+    }
+
+    private static int getInt(byte[] b, int i) {
+        return (b[i] & 0xff) << 24 | (b[i + 1] & 0xff) << 16 | (b[i + 2] & 0xff) << 8 | (b[i + 3] & 0xff);
+    }
+
+    private static long getLong(byte[] b, int i) {
+        return (long) getInt(b, i) << 32 | (getInt(b, i + 4) & 0xffffffffL);
+    }
+
+    /**
+     * Makes the reader's counts visible to other threads.
+     */
+    private void publish() {
+        bytes = bytesRead;
+        events = eventsRead;
+        malformed = malformedRead;
+    }
+
+    /**
+     * Adds an event to the batch being filled, handing it over when full.
+     */
+    private void add(byte op, int id, int priority, long time) throws InterruptedException {
+        Batch batch = filling;
+        int i = batch.size++;
+        batch.ops[i] = op;
+        batch.ids[i] = id;
+        batch.priorities[i] = priority;
+        batch.times[i] = time;
+        if (batch.size == batch.ops.length) {
+            filling = null;
+            hand(batch);
+            filling = take();
+        }
+    }
+
+    /**
+     * @return an empty batch, waiting for the worker to recycle one
+     */
+    private Batch take() throws InterruptedException {
+        Batch batch = empty.take();
+        batch.size = 0;
+        return batch;
+    }
+
+    /**
+     * Hands a batch to the worker, waiting while the queue is full.
+     */
+    private void hand(Batch batch) throws InterruptedException {
+        if (!full.offer(batch)) {
+            stalls++;
+            full.put(batch);
+        }
+    }
+
+    /**
+     * Worker loop: applies batches to the triage until the end of the
+     * stream.  After a failure batches are only recycled, so that the
+     * reader is never left waiting.
+     */
+    private void apply() {
+        try {
+            Batch batch;
+            while ((batch = full.take()) != END) {
+                if (failure == null) {
+                    try {
+                        apply(batch);
+                        batches++;
+                    } catch (Throwable ex) {
+                        failure = ex;
+                    }
+                }
+                empty.add(batch);
+            }
+        } catch (InterruptedException ex) {
+            failure = ex;
+        }
+    }
+
+    /**
+     * Applies the events of a batch in order.
+     */
+    private void apply(Batch batch) throws IOException {
+        int i = 0;
+        while (i < batch.size) {
+            byte op = batch.ops[i];
+            if (op == ARRIVE) {
+                run.clear();
+                for (; i < batch.size && batch.ops[i] == ARRIVE; i++) {
+                    try {
+                        run.add(new Patient(batch.ids[i], batch.priorities[i], batch.times[i]));
+                    } catch (BoundaryViolationException ex) {
+                        rejected++;
+                    }
+                }
+                triage.addAll(run);
+                arrivals += run.size();
+            } else if (op == RETRIAGE) {
+                Patient patient = triage.find(batch.ids[i]);
+                try {
+                    if (patient == null) {
+                        throw new BoundaryViolationException();
+                    }
+                    triage.reprioritize(patient, batch.priorities[i]);
+                    retriages++;
+                } catch (BoundaryViolationException ex) {
+                    rejected++;
+                }
+                i++;
+            } else {
+                long now = batch.times[i];
+                int count = 0;
+                for (; i < batch.size && batch.ops[i] == SEEN && batch.times[i] == now; i++) {
+                    count++;
+                }
+                run.clear();
+                try {
+                    triage.drainTo(run, now, count);
+                } catch (BoundaryViolationException ex) {
+                    throw new IllegalStateException(ex); //count is positive
+                }
+                rejected += count - run.size();
+                for (Patient patient : run) {
+                    sink.seen(patient, now);
+                }
+                seen += run.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package A2Q2;
+
+/**
+ * Receives measurements from a PatientTriage as patients are added and
+ * removed.  Calls are made by the thread doing the operation, after it, and
+ * a thread-safe triage makes them while it holds its lock; metrics shared by
+ * several triages must be thread-safe.
+ * NO_OP is the default, and a triage given NO_OP skips its measurements
+ * altogether, so unmonitored queues pay a single comparison per operation.
+ */
+public interface TriageMetrics {
+
+    /**
+     * Records nothing.
+     */
+    public static final TriageMetrics NO_OP = new TriageMetrics() {
+        public void added(Patient patient, long nanos, int depth, long sifts) {
+        }
+
+        public void removed(Patient patient, long now, boolean overdue, long nanos, int depth, long sifts) {
+        }
+    };
+
+    /**
+     * Called after a patient has been added.
+     *
+     * @param patient the patient added
+     * @param nanos time taken
+     * @param depth number of patients waiting afterwards
+     * @param sifts levels that entries moved in the heaps, 0 for bucket and FIFO queues
+     */
+    public void added(Patient patient, long nanos, int depth, long sifts);
+
+    /**
+     * Called after a patient has been removed to be seen.
+     *
+     * @param patient the patient removed
+     * @param now current time in epoch minutes
+     * @param overdue true if the patient had waited longer than maxWait and
+     * was taken in order of arrival, false if taken in priority order
+     * @param nanos time taken
+     * @param depth number of patients waiting afterwards
+     * @param sifts levels that entries moved in the heaps, 0 for bucket and FIFO queues
+     */
+    public void removed(Patient patient, long now, boolean overdue, long nanos, int depth, long sifts);
+}
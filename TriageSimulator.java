@@ -0,0 +1,484 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Discrete-event simulation of an emergency ward triaged by PatientTriage,
+ * for choosing maxWait and staffing offline.  Patients arrive as a Poisson
+ * process with priorities drawn from a mix, wait in a PatientTriage, and are
+ * seen by the first free member of staff for a service time drawn from a
+ * distribution.  Simulated time is kept in fractional minutes and passed to
+ * the triage in whole epoch minutes.  A simulator reuses its PatientTriage
+ * from run to run, and patients are recycled once seen, so a run allocates
+ * little beyond its Histograms.  A simulator is not thread-safe; runAll
+ * keeps one for each run in progress.
+ */
+public class TriageSimulator {
+
+    /**
+     * Distribution of the time a patient takes to be seen.
+     */
+    public interface ServiceTime {
+
+        /**
+         * @param priority priority of the patient
+         * @param random source of randomness for this run
+         * @return minutes spent seeing the patient, not negative
+         */
+        public double minutes(int priority, SplittableRandom random);
+
+        /**
+         * @param meanMinutes mean service time of priority 1, 2, ...; the
+         * last mean is used for any higher priority
+         * @return exponentially distributed service times
+         * @throws IllegalArgumentException if no means are given or any is not positive
+         */
+        public static ServiceTime exponential(double... meanMinutes) {
+            if (meanMinutes.length == 0) {
+                throw new IllegalArgumentException("no mean service time");
+            }
+            final double[] means = meanMinutes.clone();
+            for (double mean : means) {
+                if (!(mean > 0)) {
+                    throw new IllegalArgumentException("mean service time out of range");
+                }
+            }
+            return (priority, random) -> means[Math.min(priority, means.length) - 1] * -Math.log(1 - random.nextDouble());
+        }
+
+        /**
+         * @param minutes service time of every patient
+         * @return constant service times
+         * @throws IllegalArgumentException if minutes is negative
+         */
+        public static ServiceTime fixed(double minutes) {
+            if (!(minutes >= 0)) {
+                throw new IllegalArgumentException("service time out of range");
+            }
+            return (priority, random) -> minutes;
+        }
+    }
+
+    /**
+     * Settings of one simulation run.
+     */
+    public static class Scenario {
+
+        private final long maxWaitMinutes;
+        private final double arrivalsPerHour;
+        private final double[] priorityMix;
+        private final ServiceTime serviceTime;
+        private final int staff;
+        private final int days;
+        private final long seed;
+
+        /**
+         * Constructor
+         *
+         * @param maxWaitMinutes maximum wait time in minutes, as PatientTriage.setMaxWait
+         * @param arrivalsPerHour mean rate of arrivals
+         * @param priorityMix relative frequency of priority 1, 2, ...
+         * @param serviceTime distribution of the time taken to see a patient
+         * @param staff number of patients that can be seen at once
+         * @param days length of the run
+         * @param seed random seed; runs with equal settings and seed are
+         * identical, and runs with equal arrival rate, mix and seed have the
+         * same arrivals
+         * @throws NullPointerException if given null mix or service time
+         * @throws IllegalArgumentException if any setting is out of range
+         */
+        public Scenario(long maxWaitMinutes, double arrivalsPerHour, double[] priorityMix, ServiceTime serviceTime,
+                int staff, int days, long seed) throws NullPointerException {
+            if (serviceTime == null) {
+                throw new NullPointerException();
+            }
+            if (maxWaitMinutes < 0 || !(arrivalsPerHour > 0) || staff < 1 || days < 1) {
+                throw new IllegalArgumentException("setting out of range");
+            }
+            double total = 0;
+            for (double weight : priorityMix) {
+                if (!(weight >= 0)) {
+                    throw new IllegalArgumentException("priority mix out of range");
+                }
+                total += weight;
+            }
+            if (!(total > 0) || Double.isInfinite(total)) {
+                throw new IllegalArgumentException("priority mix out of range");
+            }
+            this.maxWaitMinutes = maxWaitMinutes;
+            this.arrivalsPerHour = arrivalsPerHour;
+            this.priorityMix = priorityMix.clone();
+            this.serviceTime = serviceTime;
+            this.staff = staff;
+            this.days = days;
+            this.seed = seed;
+        }
+
+        public long getMaxWaitMinutes() {
+            return maxWaitMinutes;
+        }
+
+        public double getArrivalsPerHour() {
+            return arrivalsPerHour;
+        }
+
+        /**
+         * @return relative frequency of priority 1, 2, ...
+         */
+        public double[] getPriorityMix() {
+            return priorityMix.clone();
+        }
+
+        public ServiceTime getServiceTime() {
+            return serviceTime;
+        }
+
+        public int getStaff() {
+            return staff;
+        }
+
+        public int getDays() {
+            return days;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public String toString() {
+            return "maxWait=" + maxWaitMinutes + " arrivals/h=" + arrivalsPerHour + " mix=" + Arrays.toString(priorityMix)
+                    + " staff=" + staff + " days=" + days + " seed=" + seed;
+        }
+    }
+
+    /**
+     * Outcome of one simulation run.
+     */
+    public static class Result {
+
+        private final Scenario scenario;
+        private final Histogram[] waits; //minutes waited, by priority - 1
+        private final long arrivals;
+        private final long overdue; //patients seen because they had waited longer than maxWait
+        private final int leftWaiting;
+        private final double utilization;
+        private final long events;
+        private final long nanos;
+
+        Result(Scenario scenario, Histogram[] waits, long arrivals, long overdue, int leftWaiting, double utilization,
+                long events, long nanos) {
+            this.scenario = scenario;
+            this.waits = waits;
+            this.arrivals = arrivals;
+            this.overdue = overdue;
+            this.leftWaiting = leftWaiting;
+            this.utilization = utilization;
+            this.events = events;
+            this.nanos = nanos;
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        /**
+         * @param priority a priority in the scenario's mix
+         * @return minutes waited by the patients of that priority who were seen
+         * @throws IllegalArgumentException if priority is not in the mix
+         */
+        public Histogram getWaitMinutes(int priority) {
+            if (priority < 1 || priority > waits.length) {
+                throw new IllegalArgumentException("priority out of range");
+            }
+            return waits[priority - 1];
+        }
+
+        /**
+         * @return number of patients who arrived
+         */
+        public long getArrivals() {
+            return arrivals;
+        }
+
+        /**
+         * @return number of patients seen
+         */
+        public long getSeen() {
+            long seen = 0;
+            for (Histogram wait : waits) {
+                seen += wait.getCount();
+            }
+            return seen;
+        }
+
+        /**
+         * @return number of patients seen because they had waited longer than maxWait
+         */
+        public long getOverdue() {
+            return overdue;
+        }
+
+        /**
+         * @return number of patients still waiting at the end of the run
+         */
+        public int getLeftWaiting() {
+            return leftWaiting;
+        }
+
+        /**
+         * @return fraction of staff time spent seeing patients
+         */
+        public double getUtilization() {
+            return utilization;
+        }
+
+        /**
+         * @return number of arrivals and departures simulated
+         */
+        public long getEvents() {
+            return events;
+        }
+
+        public double getEventsPerSecond() {
+            return nanos == 0 ? 0 : events * 1e9 / nanos;
+        }
+
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            s.append(scenario).append('\n');
+            s.append(String.format("arrivals=%d seen=%d overdue=%d leftWaiting=%d utilization=%.3f events/s=%.0f%n",
+                    arrivals, getSeen(), overdue, leftWaiting, utilization, getEventsPerSecond()));
+            for (int p = 1; p <= waits.length; p++) {
+                s.append("wait min p").append(p).append(' ').append(waits[p - 1]).append('\n');
+            }
+            return s.toString();
+        }
+    }
+
+    private final PatientTriage triage = new PatientTriage(EpochMinute.toTime(0));
+    private double[] free = new double[16]; //min heap of the times busy staff become free
+    private int busy; //number of busy staff
+    private Patient[] spare = new Patient[16]; //patients seen, for reuse
+    private int spareCount;
+
+    /**
+     * Runs one scenario.
+     *
+     * @param scenario the settings
+     * @return the outcome
+     * @throws NullPointerException if given null scenario
+     */
+    public Result run(Scenario scenario) throws NullPointerException {
+        SplittableRandom random = new SplittableRandom(scenario.seed); //arrivals
+        SplittableRandom services = random.split(); //so that arrivals do not depend on service order
+        double[] mix = scenario.priorityMix;
+        double[] cumulative = new double[mix.length];
+        double total = 0;
+        for (int p = 0; p < mix.length; p++) {
+            total += mix[p];
+            cumulative[p] = total;
+        }
+        Histogram[] waits = new Histogram[mix.length];
+        for (int p = 0; p < mix.length; p++) {
+            waits[p] = new Histogram();
+        }
+        triage.clear();
+        try {
+            triage.setMaxWait(scenario.maxWaitMinutes);
+        } catch (BoundaryViolationException ex) {
+            throw new IllegalStateException(ex); //cannot happen: Scenario checked maxWait
+        }
+        double meanGap = 60 / scenario.arrivalsPerHour; //minutes between arrivals
+        double end = scenario.days * (double) EpochMinute.MINUTES_PER_DAY;
+        double busyMinutes = 0;
+        long arrivals = 0;
+        long departures = 0;
+        long overdue = 0;
+        int id = 0;
+        busy = 0;
+        long start = System.nanoTime();
+
+        double t;
+        double nextArrival = meanGap * -Math.log(1 - random.nextDouble());
+        while (true) {
+            if (busy > 0 && free[0] < nextArrival) {
+                t = free[0];
+                if (t >= end) {
+                    break;
+                }
+                popFree();
+                departures++;
+            } else {
+                t = nextArrival;
+                if (t >= end) {
+                    break;
+                }
+                id = id == Integer.MAX_VALUE ? 1 : id + 1;
+                triage.add(patient(id, priority(random, cumulative, total), (long) t));
+                arrivals++;
+                nextArrival = t + meanGap * -Math.log(1 - random.nextDouble());
+            }
+            long now = (long) t;
+            while (busy < scenario.staff && !triage.isEmpty()) {
+                Patient patient = next(triage, now);
+                if (patient.getArrival() <= now - scenario.maxWaitMinutes) {
+                    overdue++;
+                }
+                waits[patient.getPriority() - 1].record(now - patient.getArrival());
+                double service = scenario.serviceTime.minutes(patient.getPriority(), services);
+                busyMinutes += Math.min(service, end - t);
+                pushFree(t + service);
+                recycle(patient);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return new Result(scenario, waits, arrivals, overdue, triage.size(), busyMinutes / (scenario.staff * end),
+                arrivals + departures, nanos);
+    }
+
+    /**
+     * Runs scenarios in parallel on the common fork-join pool.
+     *
+     * @param scenarios the settings of each run
+     * @return the outcome of each run, in the order of the scenarios
+     * @throws NullPointerException if given null scenario
+     */
+    public static Result[] runAll(Scenario... scenarios) throws NullPointerException {
+        return runAll(ForkJoinPool.commonPool(), scenarios);
+    }
+
+    /**
+     * Runs scenarios in parallel on a fork-join pool.  Each run takes an idle
+     * simulator, and so an idle PatientTriage, from those this call has made,
+     * making one only when all are busy; they are dropped on return rather
+     * than left behind on the pool's threads.
+     *
+     * @param pool the pool to run on
+     * @param scenarios the settings of each run
+     * @return the outcome of each run, in the order of the scenarios
+     * @throws NullPointerException if given null pool or scenario
+     */
+    public static Result[] runAll(ForkJoinPool pool, Scenario... scenarios) throws NullPointerException {
+        for (Scenario scenario : scenarios) {
+            if (scenario == null) {
+                throw new NullPointerException();
+            }
+        }
+        Result[] results = new Result[scenarios.length];
+        pool.invoke(new Runs(scenarios, results, new ConcurrentLinkedQueue<>(), 0, scenarios.length));
+        return results;
+    }
+
+    /**
+     * Runs scenarios from..to-1, splitting in halves so that idle workers
+     * steal the larger pieces.
+     */
+    private static class Runs extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Scenario[] scenarios;
+        private final Result[] results;
+        private final Queue<TriageSimulator> idle; //simulators of this call not running a scenario
+        private final int from;
+        private final int to;
+
+        Runs(Scenario[] scenarios, Result[] results, Queue<TriageSimulator> idle, int from, int to) {
+            this.scenarios = scenarios;
+            this.results = results;
+            this.idle = idle;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Runs(scenarios, results, idle, from, mid), new Runs(scenarios, results, idle, mid, to));
+            } else if (to > from) {
+                TriageSimulator simulator = idle.poll();
+                if (simulator == null) {
+                    simulator = new TriageSimulator();
+                }
+                results[from] = simulator.run(scenarios[from]);
+                idle.offer(simulator);
+            }
+        }
+    }
+
+    /**
+     * @return a priority drawn from the mix
+     */
+    private static int priority(SplittableRandom random, double[] cumulative, double total) {
+        double u = random.nextDouble() * total;
+        int p = 0;
+        while (p < cumulative.length - 1 && cumulative[p] <= u) {
+            p++;
+        }
+        return p + 1;
+    }
+
+    /**
+     * @return a spare patient set to the given fields, or a new one
+     */
+    private Patient patient(int id, int priority, long arrival) {
+        try {
+            if (spareCount == 0) {
+                return new Patient(id, priority, arrival);
+            }
+            Patient patient = spare[--spareCount];
+            spare[spareCount] = null;
+            patient.setID(id);
+            patient.setPriority(priority);
+            patient.setArrival(arrival);
+            return patient;
+        } catch (BoundaryViolationException ex) {
+            throw new IllegalStateException(ex); //cannot happen: the fields are in range
+        }
+    }
+
+    private void recycle(Patient patient) {
+        if (spareCount == spare.length) {
+            spare = Arrays.copyOf(spare, 2 * spareCount);
+        }
+        spare[spareCount++] = patient;
+    }
+
+    private static Patient next(PatientTriage triage, long now) {
+        try {
+            return triage.remove(now);
+        } catch (EmptyQueueException | BoundaryViolationException ex) {
+            throw new IllegalStateException(ex); //cannot happen: the triage is not empty
+        }
+    }
+
+    private void pushFree(double time) {
+        if (busy == free.length) {
+            free = Arrays.copyOf(free, 2 * busy);
+        }
+        int pos = busy++;
+        while (pos > 0 && free[(pos - 1) >>> 1] > time) {
+            free[pos] = free[(pos - 1) >>> 1];
+            pos = (pos - 1) >>> 1;
+        }
+        free[pos] = time;
+    }
+
+    private void popFree() {
+        double last = free[--busy];
+        int pos = 0;
+        int child;
+        while ((child = 2 * pos + 1) < busy) {
+            if (child + 1 < busy && free[child + 1] < free[child]) {
+                child++;
+            }
+            if (free[child] >= last) {
+                break;
+            }
+            free[pos] = free[child];
+            pos = child;
+        }
+        free[pos] = last;
+    }
+}
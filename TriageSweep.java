@@ -0,0 +1,199 @@
+package A2Q2;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Sweeps TriageSimulator over a grid of maxWait values, arrival rates and
+ * priority mixes, for choosing PatientTriage.setMaxWait by experiment rather
+ * than by trial on the ward.  The cells run in parallel on a work-stealing
+ * fork-join pool through TriageSimulator.runAll, each taking an idle
+ * simulator, and so an idle PatientTriage, from those made for the sweep,
+ * and the results are written as CSV, one row per cell.  Every cell uses
+ * the same seed, so cells with the same arrival rate and mix see the same
+ * arrivals and differ only by maxWait.
+ *
+ * Run from the command line with key=value arguments, e.g.
+ * <pre>
+ *   java -cp out A2Q2.TriageSweep maxWait=60,120,240 arrivals=8,12 mix=1:2:4:8:5,1:1:1:1:1 service=30,20,15,10,8 staff=4 days=30 seed=42 out=sweep.csv
+ * </pre>
+ * service gives the mean exponential service time of each priority in
+ * minutes; without out the CSV is written to standard output.
+ */
+public class TriageSweep {
+
+    private final long[] maxWaits;
+    private final double[] arrivalsPerHour;
+    private final double[][] priorityMixes;
+    private final TriageSimulator.ServiceTime serviceTime;
+    private final int staff;
+    private final int days;
+    private final long seed;
+
+    /**
+     * Constructor
+     *
+     * @param maxWaits maximum wait times in minutes
+     * @param arrivalsPerHour mean arrival rates
+     * @param priorityMixes relative frequencies of priority 1, 2, ...
+     * @param serviceTime distribution of the time taken to see a patient
+     * @param staff number of patients that can be seen at once
+     * @param days length of each run
+     * @param seed random seed of every run
+     * @throws NullPointerException if given null array or service time
+     * @throws IllegalArgumentException if any setting is out of range
+     */
+    public TriageSweep(long[] maxWaits, double[] arrivalsPerHour, double[][] priorityMixes,
+            TriageSimulator.ServiceTime serviceTime, int staff, int days, long seed) throws NullPointerException {
+        if (maxWaits.length == 0 || arrivalsPerHour.length == 0 || priorityMixes.length == 0) {
+            throw new IllegalArgumentException("empty grid");
+        }
+        this.maxWaits = maxWaits.clone();
+        this.arrivalsPerHour = arrivalsPerHour.clone();
+        this.priorityMixes = priorityMixes.clone();
+        this.serviceTime = serviceTime;
+        this.staff = staff;
+        this.days = days;
+        this.seed = seed;
+        scenarios(); //check every cell
+    }
+
+    /**
+     * @return the settings of each cell, by priority mix, then arrival rate,
+     * then maxWait
+     */
+    public TriageSimulator.Scenario[] scenarios() {
+        TriageSimulator.Scenario[] scenarios = new TriageSimulator.Scenario[priorityMixes.length * arrivalsPerHour.length * maxWaits.length];
+        int cell = 0;
+        for (double[] mix : priorityMixes) {
+            for (double rate : arrivalsPerHour) {
+                for (long maxWait : maxWaits) {
+                    scenarios[cell++] = new TriageSimulator.Scenario(maxWait, rate, mix, serviceTime, staff, days, seed);
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * Runs every cell on the common fork-join pool.
+     *
+     * @return the outcome of each cell, in the order of scenarios()
+     */
+    public TriageSimulator.Result[] run() {
+        return TriageSimulator.runAll(scenarios());
+    }
+
+    /**
+     * Runs every cell on a fork-join pool.
+     *
+     * @param pool the pool to run on
+     * @return the outcome of each cell, in the order of scenarios()
+     * @throws NullPointerException if given null pool
+     */
+    public TriageSimulator.Result[] run(ForkJoinPool pool) throws NullPointerException {
+        return TriageSimulator.runAll(pool, scenarios());
+    }
+
+    /**
+     * Writes results as CSV with a header row: the settings and counts of
+     * each run, then the mean, median, 90th and 99th percentile and largest
+     * wait of each priority, in minutes.  Priorities missing from a run's mix
+     * are left empty.
+     *
+     * @param results the results to write
+     * @param out where to write them
+     * @throws NullPointerException if given null results, result or output
+     * @throws IOException if out cannot be written
+     */
+    public static void writeCsv(TriageSimulator.Result[] results, Appendable out) throws NullPointerException, IOException {
+        int priorities = 0;
+        for (TriageSimulator.Result result : results) {
+            priorities = Math.max(priorities, result.getScenario().getPriorityMix().length);
+        }
+        out.append("maxWait,arrivalsPerHour,mix,staff,days,seed,arrivals,seen,overdue,leftWaiting,utilization");
+        for (int p = 1; p <= priorities; p++) {
+            out.append(",p").append(Integer.toString(p)).append("Mean");
+            out.append(",p").append(Integer.toString(p)).append("P50");
+            out.append(",p").append(Integer.toString(p)).append("P90");
+            out.append(",p").append(Integer.toString(p)).append("P99");
+            out.append(",p").append(Integer.toString(p)).append("Max");
+        }
+        out.append('\n');
+        for (TriageSimulator.Result result : results) {
+            TriageSimulator.Scenario scenario = result.getScenario();
+            double[] mix = scenario.getPriorityMix();
+            StringBuilder row = new StringBuilder();
+            row.append(scenario.getMaxWaitMinutes()).append(',').append(scenario.getArrivalsPerHour()).append(',');
+            for (int p = 0; p < mix.length; p++) {
+                row.append(p == 0 ? "" : ":").append(mix[p]);
+            }
+            row.append(',').append(scenario.getStaff()).append(',').append(scenario.getDays()).append(',').append(scenario.getSeed());
+            row.append(',').append(result.getArrivals()).append(',').append(result.getSeen()).append(',').append(result.getOverdue());
+            row.append(',').append(result.getLeftWaiting()).append(',').append(String.format(Locale.ROOT, "%.4f", result.getUtilization()));
+            for (int p = 1; p <= priorities; p++) {
+                if (p > mix.length) {
+                    row.append(",,,,,");
+                    continue;
+                }
+                Histogram wait = result.getWaitMinutes(p);
+                row.append(',').append(String.format(Locale.ROOT, "%.2f", wait.getMean()));
+                row.append(',').append(wait.getValueAtPercentile(50));
+                row.append(',').append(wait.getValueAtPercentile(90));
+                row.append(',').append(wait.getValueAtPercentile(99));
+                row.append(',').append(wait.getMax());
+            }
+            out.append(row).append('\n');
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> settings = new HashMap<>();
+        settings.put("maxWait", "60,120,240");
+        settings.put("arrivals", "12");
+        settings.put("mix", "1:2:4:8:5");
+        settings.put("service", "30,20,15,10,8");
+        settings.put("staff", "4");
+        settings.put("days", "30");
+        settings.put("seed", "42");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !settings.containsKey(arg.substring(0, eq)) && !arg.startsWith("out=")) {
+                throw new IllegalArgumentException("expected key=value with key one of " + settings.keySet() + " or out: " + arg);
+            }
+            settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String[] waits = settings.get("maxWait").split(",");
+        long[] maxWaits = new long[waits.length];
+        for (int i = 0; i < waits.length; i++) {
+            maxWaits[i] = Long.parseLong(waits[i].trim());
+        }
+        String[] mixes = settings.get("mix").split(",");
+        double[][] priorityMixes = new double[mixes.length][];
+        for (int i = 0; i < mixes.length; i++) {
+            priorityMixes[i] = doubles(mixes[i], ":");
+        }
+        TriageSweep sweep = new TriageSweep(maxWaits, doubles(settings.get("arrivals"), ","), priorityMixes,
+                TriageSimulator.ServiceTime.exponential(doubles(settings.get("service"), ",")),
+                Integer.parseInt(settings.get("staff")), Integer.parseInt(settings.get("days")), Long.parseLong(settings.get("seed")));
+        TriageSimulator.Result[] results = sweep.run();
+        String out = settings.get("out");
+        if (out == null) {
+            writeCsv(results, System.out);
+        } else {
+            try (Writer writer = new BufferedWriter(new FileWriter(out))) {
+                writeCsv(results, writer);
+            }
+        }
+    }
+
+    private static double[] doubles(String list, String separator) {
+        String[] items = list.split(separator);
+        double[] values = new double[items.length];
+        for (int i = 0; i < items.length; i++) {
+            values[i] = Double.parseDouble(items[i].trim());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,68 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Tournament (winner) tree over a fixed number of leaves with primitive long
+ * keys and tie-breakers.  The leaf with the smallest key wins, then the
+ * smallest tie-breaker, then the lower leaf.
+ * Changing the key of one leaf replays only the matches on its path to the
+ * root.
+ */
+class WinnerTree {
+
+    private final long[] keys; //key of each leaf
+    private final long[] ties; //tie-breaker of each leaf
+    private final int[] winners; //leaf winning each match, from index 1; leaves from index width
+    private final int width; //number of leaf positions, a power of two
+
+    /**
+     * @param leaves number of leaves, all starting with key Long.MAX_VALUE
+     */
+    WinnerTree(int leaves) {
+        int w = 1;
+        while (w < leaves) {
+            w <<= 1;
+        }
+        width = w;
+        keys = new long[w];
+        ties = new long[w];
+        Arrays.fill(keys, Long.MAX_VALUE);
+        winners = new int[2 * w];
+        for (int leaf = 0; leaf < w; leaf++) {
+            winners[w + leaf] = leaf;
+        }
+        for (int i = w - 1; i >= 1; i--) {
+            winners[i] = play(winners[2 * i], winners[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Sets the key and tie-breaker of a leaf and replays its path to the root.
+     */
+    void update(int leaf, long key, long tie) {
+        keys[leaf] = key;
+        ties[leaf] = tie;
+        for (int i = (width + leaf) >>> 1; i >= 1; i >>>= 1) {
+            winners[i] = play(winners[2 * i], winners[2 * i + 1]);
+        }
+    }
+
+    /**
+     * @return the leaf with the smallest key
+     */
+    int winner() {
+        return winners[1];
+    }
+
+    long key(int leaf) {
+        return keys[leaf];
+    }
+
+    private int play(int a, int b) {
+        if (keys[b] != keys[a]) {
+            return keys[b] < keys[a] ? b : a;
+        }
+        return ties[b] < ties[a] ? b : a;
+    }
+}
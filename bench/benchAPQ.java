@@ -0,0 +1,173 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Benchmarks offer, poll and remove(int) at queue depths from 10 to 1M for
+ * each priority queue engine, keyed on patient priority.  APQ4 and APQ8 are
+ * APQ with 4-ary and 8-ary heaps, and KeyedAPQ4 is KeyedAPQ with a 4-ary
+ * heap, as the KEYED_HEAP engine of PatientTriage uses.  The engines that can keep arrival order
+ * are then run keyed on arrival time, with patients arriving in order.
+ */
+public class benchAPQ {
+
+    private static final int MAX_DEPTH = Bench.DEPTHS[Bench.DEPTHS.length - 1];
+    private static final String[] ENGINES = {"APQ", "APQ4", "APQ8", "KeyedAPQ", "KeyedAPQ4", "BucketQueue", "PairingHeap"};
+    private static final String[] ARRIVAL_ENGINES = {"ArrivalQueue", "RadixHeap", "APQ4", "KeyedAPQ4", "PairingHeap"};
+
+    public static void main(String[] args) throws Exception {
+        final Patient[] patients = Bench.patients(2 * MAX_DEPTH, 5, false, 42);
+        final Patient[] ordered = Bench.patients(2 * MAX_DEPTH, 5, true, 42);
+        Random random = new Random(7);
+
+        Bench.header();
+        for (final String engine : ENGINES) {
+        for (final int depth : Bench.DEPTHS) {
+            final int[] removals = permutation(depth, random);
+
+            //fill an empty queue to depth
+            Bench.measure(engine + ".offer", depth, new Bench.Workload() {
+                AdaptablePriorityQueue<Patient> apq;
+                public int setUp(int depth) {
+                    apq = newQueue(engine);
+                    return depth;
+                }
+                public void run() {
+                    for (int i = 0; i < depth; i++) {
+                        apq.offer(patients[i]);
+                    }
+                }
+            });
+
+            //drain a queue of the given depth
+            Bench.measure(engine + ".poll", depth, new Bench.Workload() {
+                AdaptablePriorityQueue<Patient> apq;
+                public int setUp(int depth) {
+                    apq = fill(newQueue(engine), patients, 0, depth);
+                    return depth;
+                }
+                public void run() {
+                    for (int i = 0; i < depth; i++) {
+                        apq.poll();
+                    }
+                }
+            });
+
+            //remove randomly chosen entries until half the queue is gone
+            Bench.measure(engine + ".remove(int)", depth, new Bench.Workload() {
+                AdaptablePriorityQueue<Patient> apq;
+                public int setUp(int depth) {
+                    apq = fill(newQueue(engine), patients, 0, depth);
+                    return depth / 2;
+                }
+                public void run() throws BoundaryViolationException {
+                    for (int i = 0; i < depth / 2; i++) {
+                        apq.remove(patients[removals[i]].getPriorityPos());
+                    }
+                }
+            });
+
+            //steady state at depth: each operation is an offer followed by a poll
+            Bench.measure(engine + ".offer+poll", depth, new Bench.Workload() {
+                AdaptablePriorityQueue<Patient> apq;
+                public int setUp(int depth) {
+                    apq = fill(newQueue(engine), patients, 0, depth);
+                    return depth;
+                }
+                public void run() {
+                    for (int i = 0; i < depth; i++) {
+                        apq.offer(patients[MAX_DEPTH + i]);
+                        apq.poll();
+                    }
+                }
+            });
+        }
+        }
+
+        for (final String engine : ARRIVAL_ENGINES) {
+        for (final int depth : Bench.DEPTHS) {
+            final int[] removals = permutation(depth, random);
+
+            //remove randomly chosen arrivals until half the queue is gone
+            Bench.measure(engine + ".remove(int) by arrival", depth, new Bench.Workload() {
+                AdaptablePriorityQueue<Patient> apq;
+                public int setUp(int depth) {
+                    apq = fill(newArrivalQueue(engine), ordered, 0, depth);
+                    return depth / 2;
+                }
+                public void run() throws BoundaryViolationException {
+                    for (int i = 0; i < depth / 2; i++) {
+                        apq.remove(ordered[removals[i]].getTimePos());
+                    }
+                }
+            });
+
+            //steady state at depth: each operation is a later arrival followed by a poll
+            Bench.measure(engine + ".offer+poll by arrival", depth, new Bench.Workload() {
+                AdaptablePriorityQueue<Patient> apq;
+                public int setUp(int depth) {
+                    apq = fill(newArrivalQueue(engine), ordered, 0, depth);
+                    return depth;
+                }
+                public void run() {
+                    for (int i = 0; i < depth; i++) {
+                        apq.offer(ordered[MAX_DEPTH + i]);
+                        apq.poll();
+                    }
+                }
+            });
+        }
+        }
+    }
+
+    static AdaptablePriorityQueue<Patient> newQueue(String engine) {
+        if (engine.equals("BucketQueue")) {
+            return new BucketQueue<>(new PatientPriorityKey(), new PatientPriorityLocator(), 5);
+        }
+        if (engine.startsWith("APQ") && engine.length() > 3) {
+            return new APQ<>(new PatientPriorityComparator(), new PatientPriorityLocator(),
+                    Integer.parseInt(engine.substring(3)));
+        }
+        if (engine.startsWith("KeyedAPQ")) {
+            return new KeyedAPQ<>(new PatientPriorityKey(), new PatientPriorityLocator(),
+                    engine.length() > 8 ? Integer.parseInt(engine.substring(8)) : 2);
+        }
+        if (engine.equals("PairingHeap")) {
+            return new PairingHeap<>(new PatientPriorityKey(), new PatientPriorityLocator());
+        }
+        return new APQ<>(new PatientPriorityComparator(), new PatientPriorityLocator());
+    }
+
+    static AdaptablePriorityQueue<Patient> newArrivalQueue(String engine) {
+        if (engine.equals("ArrivalQueue")) {
+            return new ArrivalQueue<>(new PatientTimeComparator(), new PatientTimeLocator());
+        }
+        if (engine.equals("RadixHeap")) {
+            return new RadixHeap<>(new PatientTimeKey(), new PatientTimeLocator());
+        }
+        if (engine.equals("PairingHeap")) {
+            return new PairingHeap<>(new PatientTimeKey(), new PatientTimeLocator());
+        }
+        if (engine.equals("KeyedAPQ4")) {
+            return new KeyedAPQ<>(new PatientTimeKey(), new PatientTimeLocator(), 4);
+        }
+        return new APQ<>(new PatientTimeComparator(), new PatientTimeLocator(), 4);
+    }
+
+    static int[] permutation(int n, Random random) {
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+            p[i] = p[j];
+            p[j] = i;
+        }
+        return p;
+    }
+
+    static AdaptablePriorityQueue<Patient> fill(AdaptablePriorityQueue<Patient> apq, Patient[] patients, int from, int n) {
+        for (int i = from; i < from + n; i++) {
+            apq.offer(patients[i]);
+        }
+        return apq;
+    }
+}
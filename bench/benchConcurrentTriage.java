@@ -0,0 +1,157 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Measures PatientTriage throughput from 1 to 32 threads.  Each thread admits
+ * a patient and then removes the next one, against a shared queue kept at a
+ * steady depth.  A plain PatientTriage wrapped in one global monitor is the
+ * baseline.  The "+ display" runs add one thread polling the heads and size
+ * as a waiting-room display would, to show whether its reads slow the
+ * writers.
+ */
+public class benchConcurrentTriage {
+
+    /**
+     * The queue under test.
+     */
+    interface Target {
+        public void add(Patient patient) throws Exception;
+        public Patient remove(Time currentTime) throws Exception;
+    }
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int DEPTH = 10000;
+    private static final long MEASURE_MILLIS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-36s %8s %12s%n", "benchmark", "threads", "Mops/s");
+        for (int round = 0; round < 2; round++) { //first round warms up
+            for (int threads : THREADS) {
+                run("synchronized PatientTriage", monitor(new PatientTriage(new Time(2, 30))), threads, round > 0);
+                run("ConcurrentPatientTriage", target(new ConcurrentPatientTriage(new Time(2, 30))), threads, round > 0);
+                run("CombiningPatientTriage", target(new CombiningPatientTriage(new Time(2, 30))), threads, round > 0);
+                ConcurrentPatientTriage concurrent = new ConcurrentPatientTriage(new Time(2, 30));
+                run("ConcurrentPatientTriage + display", target(concurrent), concurrent, threads, round > 0);
+                CombiningPatientTriage combining = new CombiningPatientTriage(new Time(2, 30));
+                run("CombiningPatientTriage + display", target(combining), combining, threads, round > 0);
+                run("ShardedPatientTriage x8", target(new ShardedPatientTriage(new Time(2, 30), 8)), threads, round > 0);
+            }
+        }
+    }
+
+    static Target monitor(final PatientTriage triage) {
+        return new Target() {
+            public synchronized void add(Patient patient) {
+                triage.add(patient);
+            }
+            public synchronized Patient remove(Time currentTime) throws Exception {
+                return triage.remove(currentTime);
+            }
+        };
+    }
+
+    static Target target(final PatientTriage triage) {
+        return new Target() {
+            public void add(Patient patient) {
+                triage.add(patient);
+            }
+            public Patient remove(Time currentTime) throws Exception {
+                return triage.remove(currentTime);
+            }
+        };
+    }
+
+    static Target target(final ShardedPatientTriage triage) {
+        return new Target() {
+            public void add(Patient patient) {
+                triage.add(patient);
+            }
+            public Patient remove(Time currentTime) throws Exception {
+                return triage.remove(currentTime);
+            }
+        };
+    }
+
+    /**
+     * Runs the add+remove workload on triage from the given number of threads.
+     */
+    static void run(String name, final Target triage, int threads, boolean print) throws Exception {
+        run(name, triage, null, threads, print);
+    }
+
+    /**
+     * Runs the add+remove workload on triage from the given number of
+     * threads, while one more thread polls display if it is not null.
+     */
+    static void run(String name, final Target triage, final PatientTriage display, int threads, boolean print) throws Exception {
+        final Time arrival = new Time(8, 0);
+        final Time now = new Time(9, 0);
+        Random random = new Random(1);
+        for (int i = 0; i < DEPTH; i++) {
+            triage.add(new Patient(i + 1, 1 + random.nextInt(5), arrival));
+        }
+        final AtomicInteger ids = new AtomicInteger(DEPTH);
+        final AtomicBoolean stop = new AtomicBoolean();
+        final LongAdder ops = new LongAdder();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        Random random = new Random(Thread.currentThread().getId());
+                        start.await();
+                        long n = 0;
+                        while (!stop.get()) {
+                            Patient patient = new Patient(ids.incrementAndGet(), 1 + random.nextInt(5), arrival);
+                            triage.add(patient);
+                            triage.remove(now);
+                            n++;
+                        }
+                        ops.add(n);
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        if (display != null) {
+            Thread reader = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        long seen = 0;
+                        while (!stop.get()) {
+                            Patient next = display.peekByPriority();
+                            Patient first = display.peekByArrival();
+                            seen += display.size() + (next == null ? 0 : 1) + (first == null ? 0 : 1);
+                        }
+                        if (seen < 0) {
+                            System.out.println(seen); //keep the reads live
+                        }
+                    } catch (InterruptedException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            });
+            reader.start();
+            workers.add(reader);
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        Thread.sleep(MEASURE_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long t1 = System.nanoTime();
+        if (print) {
+            System.out.printf("%-36s %8d %12.2f%n", name, threads, (double) ops.sum() * 1000 / (t1 - t0));
+        }
+    }
+}
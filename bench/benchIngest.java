@@ -0,0 +1,55 @@
+package A2Q2;
+
+import java.io.*;
+
+/**
+ * Benchmarks TriageIngester on text and binary event streams held in memory,
+ * per event.  Each stream admits patients arriving in order and sees one
+ * patient per arrival, so the waiting room stays near the given depth.  The
+ * bytes/op column counts the reading thread only, which parses without
+ * allocating; the worker allocates one Patient per arrival.
+ */
+public class benchIngest {
+
+    private static final int EVENTS = 1000000;
+
+    public static void main(String[] args) throws Exception {
+        Bench.header();
+        for (final int depth : Bench.DEPTHS) {
+            if (depth < 1000) {
+                continue;
+            }
+            Patient[] patients = Bench.patients(depth + EVENTS / 2, 5, true, 42);
+            StringBuilder text = new StringBuilder();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream binary = new DataOutputStream(bytes);
+            for (int i = 0; i < patients.length; i++) {
+                Patient p = patients[i];
+                text.append("A ").append(p.getID()).append(' ').append(p.getPriority()).append(' ').append(p.getArrival()).append('\n');
+                binary.writeByte('A');
+                binary.writeInt(p.getID());
+                binary.writeInt(p.getPriority());
+                binary.writeLong(p.getArrival());
+                if (i >= depth) {
+                    text.append("S ").append(p.getArrival()).append('\n');
+                    binary.writeByte('S');
+                    binary.writeLong(p.getArrival());
+                }
+            }
+            final int events = patients.length + EVENTS / 2;
+            final byte[][] streams = {text.toString().getBytes("US-ASCII"), bytes.toByteArray()};
+            for (final TriageIngester.Format format : TriageIngester.Format.values()) {
+                Bench.measure("TriageIngester " + format, depth, new Bench.Workload() {
+                    TriageIngester ingester;
+                    public int setUp(int depth) throws BoundaryViolationException {
+                        ingester = new TriageIngester(new PatientTriage(new Time(23, 59)), (patient, now) -> { }, format);
+                        return events;
+                    }
+                    public void run() throws Exception {
+                        ingester.run(new ByteArrayInputStream(streams[format.ordinal()]));
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package A2Q2;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Benchmarks JournaledPatientTriage: logged admissions with group commit,
+ * and recovery of the waiting room from a snapshot, at queue depths from 1000
+ * to 1M.  The journal is kept in a temporary directory.
+ */
+public class benchJournal {
+
+    private static final int MAX_DEPTH = Bench.DEPTHS[Bench.DEPTHS.length - 1];
+
+    public static void main(String[] args) throws Exception {
+        final Patient[] ordered = Bench.patients(MAX_DEPTH, 5, true, 42);
+        final Patient[] shuffled = Bench.patients(MAX_DEPTH, 5, false, 43);
+        final Time longWait = new Time(23, 59);
+        final Path directory = Files.createTempDirectory("benchJournal");
+
+        Bench.header();
+        for (final int depth : Bench.DEPTHS) {
+            if (depth < 1000) {
+                continue;
+            }
+
+            //admit depth patients, forcing the log to disk every 256 of them
+            Bench.measure("Journaled.add", depth, new Bench.Workload() {
+                JournaledPatientTriage triage;
+                public int setUp(int depth) throws Exception {
+                    clear(directory);
+                    triage = new JournaledPatientTriage(longWait, directory);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        triage.add(ordered[i]);
+                    }
+                    triage.close();
+                }
+            });
+
+            for (final Patient[] patients : new Patient[][]{ordered, shuffled}) {
+                String name = patients == ordered ? "Journaled recover" : "Journaled recover shuffled";
+
+                //reload depth patients from a snapshot, per patient
+                clear(directory);
+                try (JournaledPatientTriage saved = new JournaledPatientTriage(longWait, directory)) {
+                    for (int i = 0; i < depth; i++) {
+                        saved.add(patients[i]);
+                    }
+                    saved.snapshot();
+                }
+                Bench.measure(name, depth, new Bench.Workload() {
+                    public int setUp(int depth) {
+                        return depth;
+                    }
+                    public void run() throws Exception {
+                        new JournaledPatientTriage(longWait, directory).close();
+                    }
+                });
+            }
+        }
+        clear(directory);
+        Files.delete(directory);
+    }
+
+    private static void clear(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+}
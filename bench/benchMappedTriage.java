@@ -0,0 +1,129 @@
+package A2Q2;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Benchmarks MappedPatientTriage at queue depths from 1000 to 1M, with the
+ * same workloads as benchPatientTriage, plus reopening a mapped waiting room.
+ * Compare the bytes/op column with benchPatientTriage for the garbage each
+ * engine leaves behind.  The mapped file is kept in a temporary directory.
+ */
+public class benchMappedTriage {
+
+    private static final int MAX_DEPTH = Bench.DEPTHS[Bench.DEPTHS.length - 1];
+
+    public static void main(String[] args) throws Exception {
+        final Patient[] ordered = Bench.patients(2 * MAX_DEPTH, 5, true, 42);
+        final Patient[] shuffled = Bench.patients(MAX_DEPTH, 5, false, 43);
+        final Time[] minutes = Bench.minutes();
+        final long endOfDay = minutes.length - 1;
+        final Time longWait = minutes[minutes.length - 1];
+        final Path directory = Files.createTempDirectory("benchMappedTriage");
+        final Path file = directory.resolve("triage.tbl");
+
+        Bench.header();
+        for (final int depth : Bench.DEPTHS) {
+            if (depth < 1000) {
+                continue;
+            }
+
+            //admit depth patients arriving in order
+            Bench.measure("Mapped.add", depth, new Bench.Workload() {
+                MappedPatientTriage triage;
+                public int setUp(int depth) throws IOException {
+                    close(triage);
+                    triage = open(file, longWait);
+                    return depth;
+                }
+                public void run() {
+                    for (int i = 0; i < depth; i++) {
+                        triage.add(ordered[i]);
+                    }
+                }
+            });
+
+            //drain in priority order: nobody has waited longer than maxWait
+            Bench.measure("Mapped.remove priority", depth, new Bench.Workload() {
+                MappedPatientTriage triage;
+                public int setUp(int depth) throws IOException {
+                    close(triage);
+                    triage = fill(open(file, longWait), ordered, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        triage.remove(endOfDay);
+                    }
+                }
+            });
+
+            //drain out-of-order arrivals one patient at a time
+            Bench.measure("Mapped.remove shuffled", depth, new Bench.Workload() {
+                MappedPatientTriage triage;
+                public int setUp(int depth) throws IOException {
+                    close(triage);
+                    triage = fill(open(file, longWait), shuffled, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        triage.remove(endOfDay);
+                    }
+                }
+            });
+
+            //steady state at depth: each operation is an arrival followed by a
+            //discharge an hour after that arrival, with a 2.5 hour maxWait
+            Bench.measure("Mapped.add+remove mixed", depth, new Bench.Workload() {
+                MappedPatientTriage triage;
+                public int setUp(int depth) throws Exception {
+                    close(triage);
+                    triage = fill(open(file, new Time(2, 30)), ordered, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        Patient arrival = ordered[MAX_DEPTH + i];
+                        triage.add(arrival);
+                        triage.remove(Math.min(endOfDay, arrival.getArrival() + 60));
+                    }
+                }
+            });
+
+            //reopen a waiting room of depth out-of-order arrivals, per patient
+            fill(open(file, longWait), shuffled, 0, depth).close();
+            Bench.measure("Mapped reopen", depth, new Bench.Workload() {
+                public int setUp(int depth) {
+                    return depth;
+                }
+                public void run() throws IOException {
+                    new MappedPatientTriage(longWait, file).close();
+                }
+            });
+        }
+        Files.deleteIfExists(file);
+        Files.delete(directory);
+    }
+
+    /**
+     * Closes the waiting room of the last round outside the measured region.
+     */
+    static void close(MappedPatientTriage triage) throws IOException {
+        if (triage != null) {
+            triage.close();
+        }
+    }
+
+    static MappedPatientTriage open(Path file, Time maxWait) throws IOException {
+        Files.deleteIfExists(file);
+        return new MappedPatientTriage(maxWait, file);
+    }
+
+    static MappedPatientTriage fill(MappedPatientTriage triage, Patient[] patients, int from, int n) {
+        for (int i = from; i < from + n; i++) {
+            triage.add(patients[i]);
+        }
+        return triage;
+    }
+}
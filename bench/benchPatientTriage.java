@@ -0,0 +1,308 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Benchmarks PatientTriage.add and PatientTriage.remove(Time) at queue depths
+ * from 10 to 1M, including mixed arrival/discharge workloads, also on the
+ * other engines a PatientTriage.Builder can choose, PatientTriage.cancel by
+ * ID, and the reports topK and overdue, which leave the queues untouched.
+ */
+public class benchPatientTriage {
+
+    private static final int MAX_DEPTH = Bench.DEPTHS[Bench.DEPTHS.length - 1];
+    private static final PatientTriage.Engine[][] ENGINES = { //priority and arrival engines besides the default
+        {PatientTriage.Engine.DARY_HEAP, PatientTriage.Engine.DARY_HEAP},
+        {PatientTriage.Engine.KEYED_HEAP, PatientTriage.Engine.KEYED_HEAP},
+        {PatientTriage.Engine.PAIRING_HEAP, PatientTriage.Engine.PAIRING_HEAP},
+        {PatientTriage.Engine.BUCKETS, PatientTriage.Engine.RADIX_HEAP},
+        {PatientTriage.Engine.DARY_HEAP, PatientTriage.Engine.RADIX_HEAP},
+        {PatientTriage.Engine.PAIRING_HEAP, PatientTriage.Engine.RADIX_HEAP}
+    };
+
+    public static void main(String[] args) throws Exception {
+        final Patient[] ordered = Bench.patients(2 * MAX_DEPTH, 5, true, 42);
+        final Patient[] shuffled = Bench.patients(MAX_DEPTH, 5, false, 43);
+        final Time[] minutes = Bench.minutes();
+        final Time endOfDay = minutes[minutes.length - 1];
+        final Time noWait = new Time(0, 0);
+        final Time longWait = endOfDay;
+        final PatientTriage[] lazy = new PatientTriage[1]; //the last lazy triage of the mixed workload
+
+        Bench.header();
+        for (final int depth : Bench.DEPTHS) {
+
+            //admit depth patients arriving in order
+            Bench.measure("PatientTriage.add", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = new PatientTriage(longWait);
+                    return depth;
+                }
+                public void run() {
+                    for (int i = 0; i < depth; i++) {
+                        triage.add(ordered[i]);
+                    }
+                }
+            });
+
+            //admit depth patients arriving out of order
+            Bench.measure("PatientTriage.add shuffled", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = new PatientTriage(longWait);
+                    return depth;
+                }
+                public void run() {
+                    for (int i = 0; i < depth; i++) {
+                        triage.add(shuffled[i]);
+                    }
+                }
+            });
+
+            //restore depth patients arriving out of order in one bulk load
+            final List<Patient> restore = Arrays.asList(shuffled).subList(0, depth);
+            Bench.measure("PatientTriage.addAll shuffled", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = new PatientTriage(longWait);
+                    return depth;
+                }
+                public void run() {
+                    triage.addAll(restore);
+                }
+            });
+
+            //drain in priority order: nobody has waited longer than maxWait
+            Bench.measure("PatientTriage.remove priority", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = fill(new PatientTriage(longWait), ordered, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        triage.remove(endOfDay);
+                    }
+                }
+            });
+
+            //drain in arrival order: everybody has waited longer than maxWait
+            Bench.measure("PatientTriage.remove overdue", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = fill(new PatientTriage(noWait), ordered, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        triage.remove(endOfDay);
+                    }
+                }
+            });
+
+            //drain out-of-order arrivals in eight batches, e.g. at shift change
+            Bench.measure("PatientTriage.removeBatch depth/8", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = fill(new PatientTriage(longWait), shuffled, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    int batch = Math.max(1, depth / 8);
+                    while (!triage.isEmpty()) {
+                        triage.removeBatch(endOfDay, batch);
+                    }
+                }
+            });
+
+            //the same drain one patient at a time
+            Bench.measure("PatientTriage.remove shuffled", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = fill(new PatientTriage(longWait), shuffled, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        triage.remove(endOfDay);
+                    }
+                }
+            });
+
+            //the same in lazy deletion mode, where the arrival heap discards
+            //patients seen by priority when they reach its head
+            Bench.measure("PatientTriage.remove shuffled lazy", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = fill(new PatientTriage(longWait, true), shuffled, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        triage.remove(endOfDay);
+                    }
+                }
+            });
+
+            //list the 50 first in priority order, from buckets and from each
+            //heap; the triage is built once per depth, and each patient listed
+            //is an operation
+            for (final PatientTriage.Engine engine : new PatientTriage.Engine[] {PatientTriage.Engine.BUCKETS, PatientTriage.Engine.DARY_HEAP,
+                    PatientTriage.Engine.KEYED_HEAP, PatientTriage.Engine.PAIRING_HEAP}) {
+                Bench.measure("PatientTriage.topK(50) " + engine, depth, new Bench.Workload() {
+                    PatientTriage triage;
+                    int listed;
+                    public int setUp(int depth) throws BoundaryViolationException {
+                        if (triage == null) {
+                            triage = fill(new PatientTriage.Builder(longWait).priorityQueue(engine).build(), shuffled, 0, depth);
+                            listed = triage.topK(50).size();
+                        }
+                        return 100 * listed;
+                    }
+                    public void run() throws BoundaryViolationException {
+                        for (int i = 0; i < 100; i++) {
+                            triage.topK(50);
+                        }
+                    }
+                });
+            }
+
+            //list the overdue patients when the first 50 to arrive are overdue,
+            //with patients arriving at the same minute as the 50th
+            Bench.measure("PatientTriage.overdue", depth, new Bench.Workload() {
+                PatientTriage triage;
+                long now;
+                int listed;
+                public int setUp(int depth) throws BoundaryViolationException {
+                    if (triage == null) {
+                        triage = fill(new PatientTriage(new Time(2, 30)), ordered, 0, depth);
+                        now = ordered[Math.min(depth, 50) - 1].getArrival() + triage.getMaxWaitMinutes();
+                        listed = triage.overdue(now).size();
+                    }
+                    return 100 * listed;
+                }
+                public void run() {
+                    for (int i = 0; i < 100; i++) {
+                        triage.overdue(now);
+                    }
+                }
+            });
+
+            //cancel every patient of the same waiting room by ID, in an order
+            //scattered over both queues; the map by ID is built beforehand
+            Bench.measure("PatientTriage.cancel shuffled", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) {
+                    triage = fill(new PatientTriage(longWait), shuffled, 0, depth);
+                    triage.find(0);
+                    return depth;
+                }
+                public void run() {
+                    for (int i = 0; i < depth; i++) {
+                        triage.cancel((int) ((long) i * 7919 % depth) + 1);
+                    }
+                }
+            });
+
+            //steady state at depth: each operation is an arrival followed by a
+            //discharge an hour after that arrival, with a 2.5 hour maxWait
+            Bench.measure("PatientTriage.add+remove mixed", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) throws BoundaryViolationException {
+                    triage = fill(new PatientTriage(new Time(2, 30)), ordered, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        Patient arrival = ordered[MAX_DEPTH + i];
+                        triage.add(arrival);
+                        triage.remove(Math.min(minutes.length - 1, arrival.getArrival() + 60));
+                    }
+                }
+            });
+
+            //the same once a find has built the map by ID, which every add and
+            //remove then keeps up to date
+            Bench.measure("PatientTriage.add+remove mixed indexed", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) throws BoundaryViolationException {
+                    triage = fill(new PatientTriage(new Time(2, 30)), ordered, 0, depth);
+                    triage.find(0);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        Patient arrival = ordered[MAX_DEPTH + i];
+                        triage.add(arrival);
+                        triage.remove(Math.min(minutes.length - 1, arrival.getArrival() + 60));
+                    }
+                }
+            });
+
+            //the same in lazy deletion mode; clearing the last triage releases
+            //the patients it still holds stale entries for
+            Bench.measure("PatientTriage.add+remove mixed lazy", depth, new Bench.Workload() {
+                public int setUp(int depth) throws BoundaryViolationException {
+                    if (lazy[0] != null) {
+                        lazy[0].clear();
+                    }
+                    lazy[0] = fill(new PatientTriage(new Time(2, 30), true), ordered, 0, depth);
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        Patient arrival = ordered[MAX_DEPTH + i];
+                        lazy[0].add(arrival);
+                        lazy[0].remove(Math.min(minutes.length - 1, arrival.getArrival() + 60));
+                    }
+                }
+            });
+            lazy[0].clear();
+
+            //the same, recording HistogramMetrics: compare with the mixed line
+            //for the cost of metrics over the NO_OP default
+            Bench.measure("PatientTriage.add+remove metered", depth, new Bench.Workload() {
+                PatientTriage triage;
+                public int setUp(int depth) throws BoundaryViolationException {
+                    triage = fill(new PatientTriage(new Time(2, 30)), ordered, 0, depth);
+                    triage.setMetrics(new HistogramMetrics());
+                    return depth;
+                }
+                public void run() throws Exception {
+                    for (int i = 0; i < depth; i++) {
+                        Patient arrival = ordered[MAX_DEPTH + i];
+                        triage.add(arrival);
+                        triage.remove(Math.min(minutes.length - 1, arrival.getArrival() + 60));
+                    }
+                }
+            });
+
+            //the same on each other pair of engines
+            for (final PatientTriage.Engine[] engines : ENGINES) {
+                Bench.measure("PatientTriage.add+remove " + engines[0] + "/" + engines[1], depth, new Bench.Workload() {
+                    PatientTriage triage;
+                    public int setUp(int depth) throws BoundaryViolationException {
+                        triage = fill(new PatientTriage.Builder(new Time(2, 30)).priorityQueue(engines[0]).arrivalQueue(engines[1]).build(),
+                                ordered, 0, depth);
+                        return depth;
+                    }
+                    public void run() throws Exception {
+                        for (int i = 0; i < depth; i++) {
+                            Patient arrival = ordered[MAX_DEPTH + i];
+                            triage.add(arrival);
+                            triage.remove(Math.min(minutes.length - 1, arrival.getArrival() + 60));
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    static PatientTriage fill(PatientTriage triage, Patient[] patients, int from, int n) {
+        for (int i = from; i < from + n; i++) {
+            triage.add(patients[i]);
+        }
+        return triage;
+    }
+}
@@ -0,0 +1,36 @@
+package A2Q2;
+
+/**
+ * Benchmarks TriageSimulator, per simulated arrival or departure.  The depth
+ * column gives the number of staff; arrivals are set to keep staff 90% busy
+ * with 20 minute exponential service times, so the waiting room stays short
+ * and the figure is mostly the cost of the event loop.  The overloaded rows
+ * run 10% more arrivals than staff can see, so that the waiting room grows
+ * through the run.
+ */
+public class benchSimulator {
+
+    private static final double[] MIX = {1, 2, 4, 8, 5};
+
+    public static void main(String[] args) throws Exception {
+        Bench.header();
+        for (final int staff : new int[] {4, 40, 400}) {
+            for (final double load : new double[] {0.9, 1.1}) {
+                double arrivalsPerHour = load * staff * 60 / 20;
+                int days = (int) Math.max(1, 1000000 / (arrivalsPerHour * 24));
+                final TriageSimulator.Scenario scenario = new TriageSimulator.Scenario(120, arrivalsPerHour, MIX,
+                        TriageSimulator.ServiceTime.exponential(20), staff, days, 42);
+                final long events = new TriageSimulator().run(scenario).getEvents();
+                Bench.measure(load < 1 ? "TriageSimulator" : "TriageSimulator overloaded", staff, new Bench.Workload() {
+                    TriageSimulator simulator = new TriageSimulator();
+                    public int setUp(int depth) {
+                        return (int) events;
+                    }
+                    public void run() {
+                        simulator.run(scenario);
+                    }
+                });
+            }
+        }
+    }
+}
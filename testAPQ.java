@@ -0,0 +1,126 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Randomized test program for APQ and KeyedAPQ: offers, polls, removals,
+ * updates and bulk operations are checked against a list kept in order of
+ * priority and then of insertion or last update, for several branching
+ * factors and for many and few ties.
+ */
+public class testAPQ {
+	public static void main(String[] args) throws BoundaryViolationException {
+		long startTime = System.nanoTime();
+		int failures = 0;
+		for (boolean keyed : new boolean[] {false, true}) {
+			String name = keyed ? "KeyedAPQ" : "APQ";
+			for (int arity = 2; arity <= 4; arity++) {
+				for (int priorities : new int[] {1, 3, 1000}) {
+					for (long seed = 0; seed < 10; seed++) {
+						String failure = run(keyed, arity, priorities, seed);
+						if (failure != null) {
+							System.out.println("Incorrect: " + name + ", arity " + arity + ", priorities 1.." + priorities + ", seed " + seed + ": " + failure);
+							failures++;
+						}
+					}
+				}
+			}
+			if (failures == 0) {
+				System.out.println("Correct: " + name + " agrees with the reference order for arities 2 to 4.");
+			}
+		}
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	/**
+	 * @return a description of the first disagreement, or null if there is none
+	 */
+	static String run(boolean keyed, int arity, int priorities, long seed) throws BoundaryViolationException {
+		Random random = new Random(seed);
+		AdaptablePriorityQueue<Patient> apq = keyed ? new KeyedAPQ<>(new PatientPriorityKey(), new PatientPriorityLocator(), arity)
+				: new APQ<>(new PatientPriorityComparator(), new PatientPriorityLocator(), arity);
+		List<Patient> reference = new ArrayList<>(); //in queue order
+		int id = 0;
+		for (int step = 0; step < 2000; step++) {
+			int op = random.nextInt(10);
+			if (op < 4 || reference.isEmpty()) {
+				Patient p = new Patient(++id, 1 + random.nextInt(priorities), 0L);
+				apq.offer(p);
+				insert(reference, p);
+			} else if (op == 4) {
+				if (apq.poll() != reference.remove(0)) {
+					return "poll at step " + step;
+				}
+			} else if (op == 5) {
+				Patient p = reference.remove(random.nextInt(reference.size()));
+				apq.remove(p.getPriorityPos());
+			} else if (op == 6) {
+				Patient p = reference.remove(random.nextInt(reference.size()));
+				p.setPriority(1 + random.nextInt(priorities));
+				apq.update(p);
+				insert(reference, p);
+			} else if (op == 7) {
+				List<Patient> batch = new ArrayList<>();
+				int n = random.nextBoolean() ? Math.min(1 + random.nextInt(3), reference.size()) : reference.size() / 2;
+				for (int i = 0; i < n; i++) {
+					batch.add(reference.remove(random.nextInt(reference.size())));
+				}
+				apq.removeAll(batch);
+			} else if (op == 8) {
+				int mod = 2 + random.nextInt(5);
+				apq.removeIf(p -> p.getID() % mod == 0);
+				reference.removeIf(p -> p.getID() % mod == 0);
+			} else {
+				List<Patient> batch = new ArrayList<>();
+				int n = random.nextInt(Math.min(2 * reference.size() + 2, 300));
+				for (int i = 0; i < n; i++) {
+					batch.add(new Patient(++id, 1 + random.nextInt(priorities), 0L));
+				}
+				apq.addAll(batch);
+				for (Patient p : batch) {
+					insert(reference, p);
+				}
+			}
+			if (apq.size() != reference.size() || apq.peek() != (reference.isEmpty() ? null : reference.get(0))) {
+				return "size or peek at step " + step;
+			}
+		}
+		if (!apq.toList().equals(reference)) {
+			return "toList";
+		}
+		List<Patient> walked = new ArrayList<>();
+		apq.forEachInOrder(p -> walked.add(p));
+		if (!walked.equals(reference)) {
+			return "forEachInOrder";
+		}
+		AdaptablePriorityQueue<Patient> copy;
+		if (keyed) {
+			copy = new KeyedAPQ<>(new PatientPriorityKey(), new PatientPriorityLocator(), arity);
+			copy.addAll(((KeyedAPQ<Patient>) apq).toInsertionList());
+		} else {
+			copy = new APQ<>(new PatientPriorityComparator(), new PatientPriorityLocator(), arity, ((APQ<Patient>) apq).toInsertionList());
+		}
+		if (!copy.toList().equals(reference)) {
+			return "toInsertionList";
+		}
+		for (Patient p : reference) {
+			if (apq.poll() != p) {
+				return "draining";
+			}
+		}
+		return apq.isEmpty() ? null : "not empty after draining";
+	}
+
+	/**
+	 * Adds p to the reference behind every patient with a priority up to its own.
+	 */
+	static void insert(List<Patient> reference, Patient p) {
+		int i = reference.size();
+		while (i > 0 && reference.get(i - 1).getPriority() > p.getPriority()) {
+			i--;
+		}
+		reference.add(i, p);
+	}
+}
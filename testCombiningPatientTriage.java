@@ -0,0 +1,72 @@
+package A2Q2;
+
+/**
+ * Test program for CombiningPatientTriage: short-lived threads, far more of
+ * them than there are request slots, must keep combining.
+ */
+public class testCombiningPatientTriage {
+	public static void main(String[] args) throws Exception {
+		long startTime = System.nanoTime();
+		final CombiningPatientTriage triage = new CombiningPatientTriage(new Time(3, 0));
+		final int threads = 3 * CombiningPatientTriage.MAX_SLOTS;
+		final Exception[] failure = new Exception[1];
+
+		//case 1: one short-lived thread after another, each adding and removing one patient
+		for (int i = 0; i < threads; i++) {
+			final int id = i + 1;
+			Thread t = new Thread(() -> {
+				try {
+					triage.add(new Patient(id, 1 + id % 5, new Time(id / 60 % 24, id % 60)));
+					triage.remove(new Time(23, 59));
+				} catch (Exception ex) {
+					failure[0] = ex;
+				}
+			});
+			t.start();
+			t.join();
+		}
+		long batches = 0;
+		for (long count : triage.getBatchSizeHistogram()) {
+			batches += count;
+		}
+		if (failure[0] == null && triage.isEmpty() && batches == 2 * threads) {
+			System.out.println("Correct: every request from " + threads + " short-lived threads was combined.");
+		} else {
+			System.out.println("Incorrect: " + batches + " of " + 2 * threads + " requests were combined"
+					+ (failure[0] == null ? "." : ", and a thread failed with " + failure[0]));
+		}
+
+		//case 2: more live threads than slots at once; the extra ones take the lock directly
+		final java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+		Thread[] pool = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			final int id = threads + i + 1;
+			pool[i] = new Thread(() -> {
+				try {
+					start.await();
+					for (int j = 0; j < 100; j++) {
+						triage.add(new Patient(id, 1 + j % 5, new Time(j / 60, j % 60)));
+						triage.remove(new Time(23, 59));
+					}
+				} catch (Exception ex) {
+					failure[0] = ex;
+				}
+			});
+			pool[i].start();
+		}
+		start.countDown();
+		for (Thread t : pool) {
+			t.join();
+		}
+		if (failure[0] == null && triage.isEmpty() && triage.size() == 0) {
+			System.out.println("Correct: " + threads + " concurrent threads added and removed every patient.");
+		} else {
+			System.out.println("Incorrect: " + triage.size() + " patients left"
+					+ (failure[0] == null ? "." : ", and a thread failed with " + failure[0]));
+		}
+
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+}
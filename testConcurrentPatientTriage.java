@@ -0,0 +1,163 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Test program for ConcurrentPatientTriage: patients added and removed by
+ * several threads at once, one at a time and in batches, each come out
+ * exactly once, and the census never shows one queue empty without the
+ * other.  After each kind of mutation the census published shows the same
+ * heads and size as a PatientTriage given the same operations.
+ */
+public class testConcurrentPatientTriage {
+	public static void main(String[] args) throws Exception {
+		long startTime = System.nanoTime();
+
+		//case 1: adders racing removals and drains
+		int failures = 0;
+		int rounds = 200;
+		final int adders = 2;
+		final int perAdder = 2000;
+		final int total = adders * perAdder;
+		ExecutorService pool = Executors.newFixedThreadPool(5);
+		for (int round = 0; round < rounds; round++) {
+			final ConcurrentPatientTriage triage = new ConcurrentPatientTriage(new Time(1, 0));
+			final AtomicIntegerArray seen = new AtomicIntegerArray(total + 1); //times each ID came out
+			final AtomicInteger taken = new AtomicInteger();
+			final AtomicBoolean torn = new AtomicBoolean();
+			List<Future<?>> tasks = new ArrayList<>();
+			for (int a = 0; a < adders; a++) {
+				final int first = 1 + a * perAdder;
+				final int seed = 2 * round + a;
+				tasks.add(pool.submit(() -> {
+					Random random = new Random(seed);
+					for (int id = first; id < first + perAdder; id++) {
+						triage.add(new Patient(id, 1 + random.nextInt(5), (long) random.nextInt(200)));
+					}
+					return null;
+				}));
+			}
+			for (int r = 0; r < 2; r++) {
+				final boolean drains = r == 1;
+				tasks.add(pool.submit(() -> {
+					List<Patient> batch = new ArrayList<>();
+					while (taken.get() < total) {
+						batch.clear();
+						if (drains) {
+							triage.drainTo(batch, 100, 5);
+						} else {
+							try {
+								batch.add(triage.remove(100));
+							} catch (EmptyQueueException ex) {
+								//the adders have not caught up
+							}
+						}
+						for (Patient patient : batch) {
+							seen.incrementAndGet(patient.getID());
+						}
+						taken.addAndGet(batch.size());
+					}
+					return null;
+				}));
+			}
+			tasks.add(pool.submit(() -> { //reads the census as it is published
+				while (taken.get() < total) {
+					TriageCensus census = triage.getCensus();
+					boolean empty = census.size() == 0;
+					if (empty != (census.peekByPriority() == null) || empty != (census.peekByArrival() == null)) {
+						torn.set(true);
+					}
+				}
+			}));
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+			boolean correct = !torn.get() && taken.get() == total;
+			for (int id = 1; id <= total; id++) {
+				correct = correct && seen.get(id) == 1;
+			}
+			correct = correct && triage.isEmpty() && triage.peekByPriority() == null && triage.peekByArrival() == null
+					&& triage.topK(1).isEmpty() && triage.overdue(Long.MAX_VALUE).isEmpty() && triage.nextDeadline() == Long.MAX_VALUE;
+			if (!correct) {
+				failures++;
+			}
+		}
+		pool.shutdown();
+		System.out.println((failures == 0 ? "Correct: " : "Incorrect: ") + "case 1, every patient added by one thread is removed exactly once by another"
+				+ (failures == 0 ? "." : " in " + failures + " rounds of " + rounds + "."));
+
+		//case 2: the census after each kind of mutation
+		String[] ops = {"add", "remove", "reprioritize", "cancel", "drainTo", "removeBatch", "clear"};
+		int[] wrong = new int[ops.length];
+		ConcurrentPatientTriage concurrent = new ConcurrentPatientTriage(new Time(1, 0));
+		PatientTriage reference = new PatientTriage(new Time(1, 0));
+		Random random = new Random(7);
+		int id = 0;
+		long now = 0;
+		for (int step = 0; step < 5000; step++) {
+			int op = random.nextInt(20);
+			op = op < 8 || reference.isEmpty() ? 0 : op < 11 ? 1 : op < 14 ? 2 : op < 16 ? 3 : op < 18 ? 4 : op < 19 ? 5 : 6;
+			now += random.nextInt(3);
+			if (op == 0) {
+				int priority = 1 + random.nextInt(5);
+				long arrival = Math.max(0, now - random.nextInt(90));
+				id++;
+				concurrent.add(new Patient(id, priority, arrival));
+				reference.add(new Patient(id, priority, arrival));
+			} else if (op == 1) {
+				concurrent.remove(now);
+				reference.remove(now);
+			} else if (op == 2) {
+				int target = id - random.nextInt(20);
+				int priority = 1 + random.nextInt(5);
+				Patient patient = concurrent.find(target);
+				if (patient != null) {
+					concurrent.reprioritize(patient, priority);
+					reference.reprioritize(reference.find(target), priority);
+				}
+			} else if (op == 3) {
+				int target = id - random.nextInt(20);
+				concurrent.cancel(target);
+				reference.cancel(target);
+			} else if (op == 4) {
+				int max = random.nextInt(6);
+				concurrent.drainTo(new ArrayList<>(), now, max);
+				reference.drainTo(new ArrayList<>(), now, max);
+			} else if (op == 5) {
+				int n = random.nextInt(6);
+				concurrent.removeBatch(now, n);
+				reference.removeBatch(now, n);
+			} else {
+				concurrent.clear();
+				reference.clear();
+			}
+			TriageCensus census = concurrent.getCensus();
+			if (!shows(census, reference) || census.size() != concurrent.size() || census.peekByPriority() != concurrent.peekByPriority()
+					|| census.peekByArrival() != concurrent.peekByArrival()) {
+				wrong[op]++;
+			}
+		}
+		for (int op = 0; op < ops.length; op++) {
+			System.out.println((wrong[op] == 0 ? "Correct: " : "Incorrect: ") + "case 2, the census after " + ops[op] + " shows the heads and size"
+					+ (wrong[op] == 0 ? "." : ", wrong " + wrong[op] + " times."));
+		}
+
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	/**
+	 * @return whether census shows the heads and size of triage, by ID
+	 */
+	static boolean shows(TriageCensus census, PatientTriage triage) {
+		return census.size() == triage.size() && id(census.peekByPriority()) == id(triage.peekByPriority())
+				&& id(census.peekByArrival()) == id(triage.peekByArrival());
+	}
+
+	static int id(Patient patient) {
+		return patient == null ? 0 : patient.getID();
+	}
+}
@@ -0,0 +1,109 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Test program for Histogram and HistogramMetrics: the log-linear buckets
+ * hold each value to within one part in SUB_BUCKETS at the edges of every
+ * power of two and at Long.MAX_VALUE, percentiles fall on the right bucket,
+ * and a scripted PatientTriage run counts the patients taken overdue and by
+ * priority and how long each priority waited.
+ */
+public class testHistogram {
+	public static void main(String[] args) throws BoundaryViolationException, EmptyQueueException {
+		long startTime = System.nanoTime();
+
+		//case 1: bucket boundaries, read back as the top of the bucket holding
+		//the median when the only other value is Long.MAX_VALUE
+		int failures = 0;
+		List<Long> values = new ArrayList<>(Arrays.asList(0L, 1L, (long) Histogram.SUB_BUCKETS - 1, (long) Histogram.SUB_BUCKETS));
+		for (int exponent = 1; exponent < 63; exponent++) {
+			long power = 1L << exponent;
+			values.add(power - 1);
+			values.add(power);
+			values.add(power + 1);
+		}
+		for (long value : values) {
+			Histogram histogram = new Histogram();
+			histogram.record(value);
+			histogram.record(Long.MAX_VALUE);
+			long top = histogram.getValueAtPercentile(50);
+			if (top != highest(value)) {
+				System.out.println("Incorrect: case 1, " + value + " is in a bucket up to " + top + ", expected " + highest(value));
+				failures++;
+			}
+		}
+		if (failures == 0) {
+			System.out.println("Correct: case 1, values 0, 2^k - 1, 2^k and 2^k + 1 fall in the expected buckets.");
+		}
+
+		//case 2: Long.MAX_VALUE and negative values
+		Histogram histogram = new Histogram();
+		histogram.record(Long.MAX_VALUE);
+		histogram.record(-5);
+		boolean correct = histogram.getCount() == 2 && histogram.getMax() == Long.MAX_VALUE
+				&& histogram.getValueAtPercentile(50) == 0 && histogram.getValueAtPercentile(100) == Long.MAX_VALUE;
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 2, Long.MAX_VALUE has the last bucket and a negative value counts as 0.");
+
+		//case 3: percentiles of 1 to 100; above SUB_BUCKETS a bucket spans two values
+		histogram = new Histogram();
+		for (long value = 100; value >= 1; value--) {
+			histogram.record(value);
+		}
+		correct = histogram.getValueAtPercentile(0) == 1 && histogram.getValueAtPercentile(25) == 25
+				&& histogram.getValueAtPercentile(50) == 50 && histogram.getValueAtPercentile(90) == 91
+				&& histogram.getValueAtPercentile(99) == 99 && histogram.getValueAtPercentile(100) == 100
+				&& histogram.getMean() == 50.5 && histogram.getMax() == 100;
+		Histogram doubled = new Histogram();
+		doubled.add(histogram);
+		doubled.add(histogram);
+		correct = correct && doubled.getCount() == 200 && doubled.getValueAtPercentile(50) == 50 && doubled.getMean() == 50.5;
+		try {
+			histogram.getValueAtPercentile(100.5);
+			correct = false;
+		} catch (IllegalArgumentException ex) {
+			//expected
+		}
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 3, percentiles of 1 to 100 are 1, 25, 50, 91, 99 and 100.");
+
+		//case 4: a scripted run with maxWait 1:00
+		PatientTriage triage = new PatientTriage(new Time(1, 0));
+		HistogramMetrics metrics = new HistogramMetrics();
+		triage.setMetrics(metrics);
+		triage.add(new Patient(1, 5, new Time(0, 0)));
+		triage.add(new Patient(2, 1, new Time(0, 30)));
+		triage.add(new Patient(3, 3, new Time(0, 40)));
+		triage.add(new Patient(4, 1, new Time(1, 10)));
+		correct = triage.remove(new Time(0, 50)).getID() == 2; //by priority, waited 20
+		correct = correct && triage.remove(new Time(1, 5)).getID() == 1; //overdue, waited 65
+		correct = correct && triage.remove(new Time(1, 20)).getID() == 4; //by priority, waited 10
+		correct = correct && triage.remove(new Time(2, 0)).getID() == 3; //overdue, waited 80
+		triage.addAll(Arrays.asList(new Patient(5, 2, new Time(1, 30)), new Patient(6, 4, new Time(1, 50))));
+		correct = correct && testLazyDeletion.ids(triage.removeBatch(new Time(2, 40), 2)).equals(Arrays.asList(5, 6)); //overdue 70, then by priority 50
+		correct = correct && metrics.getOverdueCount() == 3 && metrics.getPriorityCount() == 3
+				&& Arrays.equals(metrics.getPriorities(), new int[] {1, 2, 3, 4, 5})
+				&& metrics.getAddNanos().getCount() == 6 && metrics.getRemoveNanos().getCount() == 6
+				&& metrics.getWaitMinutes(1).getCount() == 2 && metrics.getWaitMinutes(1).getMean() == 15 && metrics.getWaitMinutes(1).getMax() == 20
+				&& metrics.getWaitMinutes(2).getMax() == 70 && metrics.getWaitMinutes(3).getMax() == 80
+				&& metrics.getWaitMinutes(4).getMax() == 50 && metrics.getWaitMinutes(5).getMax() == 65
+				&& metrics.getWaitMinutes(6) == null;
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 4, 3 patients taken overdue and 3 by priority, with their waits by priority.");
+
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	/**
+	 * @return the largest value sharing a bucket with value: below
+	 * SUB_BUCKETS each value has its own, and above it each power of two is
+	 * split into SUB_BUCKETS buckets of equal width
+	 */
+	static long highest(long value) {
+		if (value < Histogram.SUB_BUCKETS) {
+			return value;
+		}
+		long width = Long.highestOneBit(value) / Histogram.SUB_BUCKETS;
+		return value - value % width + width - 1;
+	}
+}
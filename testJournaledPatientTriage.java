@@ -0,0 +1,124 @@
+package A2Q2;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Test program for JournaledPatientTriage: a waiting room is reopened after
+ * a torn frame is left at the end of the log, and after a snapshot, and must
+ * see the same patients in the same order as a PatientTriage given the same
+ * operations up to the last commit.
+ */
+public class testJournaledPatientTriage {
+	public static void main(String[] args) throws IOException, BoundaryViolationException, EmptyQueueException {
+		long startTime = System.nanoTime();
+		Path directory = Files.createTempDirectory("triage");
+		try {
+			//case 1: a torn frame after the last commit is dropped
+			for (long seed = 0; seed < 10; seed++) {
+				clean(directory);
+				PatientTriage reference = new PatientTriage(new Time(3, 0));
+				run(reference, seed, 300);
+				JournaledPatientTriage journaled = new JournaledPatientTriage(new Time(3, 0), directory, 7);
+				run(journaled, seed, 300);
+				journaled.commit();
+				long committed = Files.size(directory.resolve(JournaledPatientTriage.LOG_FILE));
+				run(journaled, seed + 100, 50); //lost to the torn frame
+				journaled.close();
+				try (FileChannel log = FileChannel.open(directory.resolve(JournaledPatientTriage.LOG_FILE), StandardOpenOption.WRITE)) {
+					log.truncate(committed + 5); //tear the next frame inside its header
+				}
+				report("case 1, seed " + seed, reference, directory);
+			}
+
+			//case 2: garbage after the last frame is dropped
+			clean(directory);
+			PatientTriage reference = new PatientTriage(new Time(3, 0));
+			run(reference, 1, 300);
+			JournaledPatientTriage journaled = new JournaledPatientTriage(new Time(3, 0), directory, 1000);
+			run(journaled, 1, 300);
+			journaled.close();
+			Files.write(directory.resolve(JournaledPatientTriage.LOG_FILE), new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+			report("case 2", reference, directory);
+
+			//case 3: a snapshot with ties on both queues, then more logged operations
+			clean(directory);
+			reference = new PatientTriage(new Time(3, 0));
+			journaled = new JournaledPatientTriage(new Time(3, 0), directory);
+			for (PatientTriage triage : Arrays.asList(reference, journaled)) {
+				run(triage, 2, 400);
+			}
+			journaled.snapshot();
+			for (PatientTriage triage : Arrays.asList(reference, journaled)) {
+				run(triage, 3, 100);
+			}
+			journaled.close();
+			report("case 3", reference, directory);
+
+			//case 4: the snapshot alone, after reopening twice
+			clean(directory);
+			reference = new PatientTriage(new Time(3, 0));
+			journaled = new JournaledPatientTriage(new Time(3, 0), directory);
+			for (PatientTriage triage : Arrays.asList(reference, journaled)) {
+				run(triage, 4, 400);
+			}
+			journaled.snapshot();
+			journaled.close();
+			new JournaledPatientTriage(new Time(3, 0), directory).close();
+			report("case 4", reference, directory);
+		} finally {
+			clean(directory);
+			Files.delete(directory);
+		}
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	/**
+	 * Applies random adds, removals, re-triages and cancellations, the same
+	 * for a given seed and starting state.  Arrivals come out of order and
+	 * often tie, so that the arrival queue moves to a heap.
+	 */
+	static void run(PatientTriage triage, long seed, int steps) throws BoundaryViolationException, EmptyQueueException {
+		Random random = new Random(seed);
+		int id = (int) seed * 100000;
+		for (int step = 0; step < steps; step++) {
+			int op = random.nextInt(10);
+			if (op < 5 || triage.isEmpty()) {
+				triage.add(new Patient(++id, 1 + random.nextInt(4), random.nextInt(60)));
+			} else if (op < 7) {
+				triage.remove(120 + random.nextInt(120));
+			} else if (op < 9) {
+				Patient patient = triage.find(id - random.nextInt(10));
+				if (patient != null) {
+					triage.reprioritize(patient, 1 + random.nextInt(4));
+				}
+			} else {
+				triage.cancel(id - random.nextInt(10));
+			}
+		}
+	}
+
+	/**
+	 * Reopens the waiting room saved in directory and prints whether it sees
+	 * the patients in the same order as reference, emptying both.
+	 */
+	static void report(String name, PatientTriage reference, Path directory) throws IOException, BoundaryViolationException, EmptyQueueException {
+		JournaledPatientTriage reopened = new JournaledPatientTriage(new Time(5, 0), directory);
+		boolean same = reopened.size() == reference.size() && reopened.getMaxWaitMinutes() == reference.getMaxWaitMinutes();
+		for (long now = 150; same && !reference.isEmpty(); now += 7) {
+			same = reopened.remove(now).getID() == reference.remove(now).getID();
+		}
+		reopened.close();
+		System.out.println((same ? "Correct: " : "Incorrect: ") + name + " recovers the committed waiting room.");
+	}
+
+	static void clean(Path directory) throws IOException {
+		for (String file : new String[] {JournaledPatientTriage.LOG_FILE, JournaledPatientTriage.SNAPSHOT_FILE}) {
+			Files.deleteIfExists(directory.resolve(file));
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Test program for lazy deletion in PatientTriage: a patient seen from one
+ * queue cannot be re-triaged through the stale entry left in the other, and
+ * for every combination of engines a lazy triage sees, finds, lists and
+ * rejects the same patients as an eager one given the same operations.
+ */
+public class testLazyDeletion {
+	public static void main(String[] args) throws BoundaryViolationException, EmptyQueueException {
+		long startTime = System.nanoTime();
+		PatientTriage.Engine[] priorityEngines = {PatientTriage.Engine.BUCKETS, PatientTriage.Engine.DARY_HEAP, PatientTriage.Engine.KEYED_HEAP,
+				PatientTriage.Engine.PAIRING_HEAP};
+		PatientTriage.Engine[] arrivalEngines = {PatientTriage.Engine.FIFO, PatientTriage.Engine.DARY_HEAP, PatientTriage.Engine.KEYED_HEAP,
+				PatientTriage.Engine.PAIRING_HEAP, PatientTriage.Engine.RADIX_HEAP};
+
+		//case 1: re-triage of a patient seen through the arrival queue
+		for (PatientTriage.Engine priorityEngine : priorityEngines) {
+			PatientTriage triage = new PatientTriage.Builder(new Time(0, 0)).priorityQueue(priorityEngine)
+					.arrivalQueue(PatientTriage.Engine.DARY_HEAP).lazyDeletion(true).build();
+			triage.setMaxWait(60);
+			Patient p1 = new Patient(1, 5, 0L);
+			Patient p2 = new Patient(2, 1, 10L);
+			triage.add(p1);
+			triage.add(p2);
+			boolean correct = triage.remove(100) == p1;
+			try {
+				triage.reprioritize(p1, 1);
+				correct = false;
+			} catch (BoundaryViolationException ex) {
+				//expected: p1 has been seen
+			}
+			correct = correct && triage.size() == 1 && triage.remove(100) == p2 && triage.isEmpty();
+			System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 1, " + priorityEngine + " rejects re-triage of a patient seen.");
+		}
+
+		//case 2: lazy and eager deletion agree
+		int failures = 0;
+		for (PatientTriage.Engine priorityEngine : priorityEngines) {
+			for (PatientTriage.Engine arrivalEngine : arrivalEngines) {
+				for (long seed = 0; seed < 5; seed++) {
+					String failure = run(priorityEngine, arrivalEngine, seed);
+					if (failure != null) {
+						System.out.println("Incorrect: case 2, " + priorityEngine + " and " + arrivalEngine + ", seed " + seed + ": " + failure);
+						failures++;
+					}
+				}
+			}
+		}
+		if (failures == 0) {
+			System.out.println("Correct: case 2, lazy and eager deletion agree for every combination of engines.");
+		}
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	/**
+	 * Applies the same random operations to an eager and a lazy triage, each
+	 * with its own copies of the patients.
+	 *
+	 * @return a description of the first disagreement, or null if there is none
+	 */
+	static String run(PatientTriage.Engine priorityEngine, PatientTriage.Engine arrivalEngine, long seed) throws BoundaryViolationException, EmptyQueueException {
+		PatientTriage[] triages = new PatientTriage[2];
+		List<List<Patient>> seen = new ArrayList<>(); //patients each triage has seen
+		for (int i = 0; i < 2; i++) {
+			triages[i] = new PatientTriage.Builder(new Time(2, 0)).priorityQueue(priorityEngine)
+					.arrivalQueue(arrivalEngine).lazyDeletion(i == 1).build();
+			seen.add(new ArrayList<>());
+		}
+		Random random = new Random(seed);
+		int id = 0;
+		long now = 0;
+		for (int step = 0; step < 3000; step++) {
+			int op = random.nextInt(12);
+			now += random.nextInt(3);
+			int priority = 1 + random.nextInt(5);
+			long arrival = Math.max(0, now - random.nextInt(30));
+			int target = id - random.nextInt(20);
+			int k = random.nextInt(8);
+			int back = random.nextInt(3);
+			boolean adding = op < 5 || triages[0].isEmpty();
+			List<String> outcomes = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				PatientTriage triage = triages[i];
+				String outcome;
+				if (adding) {
+					triage.add(new Patient(id + 1, priority, arrival));
+					outcome = "added";
+				} else if (op < 7) {
+					Patient patient = triage.remove(now);
+					seen.get(i).add(patient);
+					outcome = "seen " + patient.getID();
+				} else if (op == 7) {
+					Patient patient = triage.find(target);
+					if (patient != null) {
+						triage.reprioritize(patient, priority);
+					}
+					outcome = "re-triaged " + (patient == null ? 0 : patient.getID());
+				} else if (op == 8) {
+					List<Patient> patients = seen.get(i);
+					outcome = "none seen";
+					if (!patients.isEmpty()) {
+						try {
+							triage.reprioritize(patients.get(Math.max(0, patients.size() - 1 - back)), priority);
+							outcome = "re-triaged a patient seen";
+						} catch (BoundaryViolationException ex) {
+							outcome = "rejected";
+						}
+					}
+				} else if (op == 9) {
+					Patient patient = triage.cancel(target);
+					outcome = "cancelled " + (patient == null ? 0 : patient.getID());
+				} else if (op == 10) {
+					List<Patient> patients = triage.removeBatch(now, k);
+					seen.get(i).addAll(patients);
+					outcome = "batch " + ids(patients);
+				} else {
+					outcome = "top " + ids(triage.topK(k)) + " overdue " + ids(triage.overdue(now));
+				}
+				outcomes.add(outcome + " size " + triage.size() + " next " + triage.nextDeadline());
+			}
+			if (adding) {
+				id++;
+			}
+			if (!outcomes.get(0).equals(outcomes.get(1))) {
+				return "step " + step + ": eager " + outcomes.get(0) + ", lazy " + outcomes.get(1);
+			}
+		}
+		return null;
+	}
+
+	static List<Integer> ids(List<Patient> patients) {
+		List<Integer> ids = new ArrayList<>();
+		for (Patient patient : patients) {
+			ids.add(patient.getID());
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,108 @@
+package A2Q2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Test program for MappedPatientTriage: a waiting room is closed and
+ * reopened between random operations, and once with the queue locations of
+ * a record overwritten as after a crash, and must see the same patients in
+ * the same order as a PatientTriage given the same operations.
+ */
+public class testMappedPatientTriage {
+	public static void main(String[] args) throws IOException, BoundaryViolationException, EmptyQueueException {
+		long startTime = System.nanoTime();
+		Path file = Files.createTempFile("triage", ".tbl");
+		try {
+			//case 1: reopened after every 100 operations
+			for (long seed = 0; seed < 10; seed++) {
+				Files.deleteIfExists(file);
+				PatientTriage reference = new PatientTriage(new Time(3, 0));
+				Map<Integer, Integer> records = new HashMap<>(); //record of each waiting patient, by ID
+				boolean same = true;
+				for (int round = 0; round < 10 && same; round++) {
+					MappedPatientTriage mapped = new MappedPatientTriage(new Time(3, 0), file);
+					same = mapped.size() == reference.size() && run(mapped, reference, records, seed * 10 + round, 100);
+					mapped.close();
+				}
+				same = same && drain(file, reference);
+				System.out.println((same ? "Correct: " : "Incorrect: ") + "case 1, seed " + seed + " reloads the waiting room.");
+			}
+
+			//case 2: queue locations lost in a crash are rebuilt from the records
+			Files.deleteIfExists(file);
+			PatientTriage reference = new PatientTriage(new Time(3, 0));
+			Map<Integer, Integer> records = new HashMap<>();
+			MappedPatientTriage mapped = new MappedPatientTriage(new Time(3, 0), file);
+			boolean same = run(mapped, reference, records, 99, 500);
+			mapped.close();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				for (int record : new TreeSet<>(records.values()).headSet(20)) {
+					ByteBuffer positions = ByteBuffer.allocate(8).putInt(1).putInt(1);
+					positions.flip();
+					channel.write(positions, record * PatientTable.RECORD_BYTES + 24); //priority and arrival queue locations
+				}
+			}
+			same = same && drain(file, reference);
+			System.out.println((same ? "Correct: " : "Incorrect: ") + "case 2 rebuilds the queues after a crash.");
+		} finally {
+			Files.deleteIfExists(file);
+		}
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	/**
+	 * Applies the same random adds, removals and re-triages to both waiting
+	 * rooms.  Arrivals come out of order and often tie.
+	 *
+	 * @return true if both saw the same patients
+	 */
+	static boolean run(MappedPatientTriage mapped, PatientTriage reference, Map<Integer, Integer> records, long seed, int steps)
+			throws BoundaryViolationException, EmptyQueueException {
+		Random random = new Random(seed);
+		int id = (int) seed * 1000;
+		for (int step = 0; step < steps; step++) {
+			int op = random.nextInt(10);
+			if (op < 5 || reference.isEmpty()) {
+				Patient patient = new Patient(++id, 1 + random.nextInt(4), random.nextInt(60));
+				reference.add(patient);
+				records.put(patient.getID(), mapped.add(patient));
+			} else if (op < 8) {
+				long now = 120 + random.nextInt(120);
+				int seen = reference.remove(now).getID();
+				if (mapped.remove(now) != seen) {
+					return false;
+				}
+				records.remove(seen);
+			} else {
+				Patient patient = reference.find(id - random.nextInt(10));
+				if (patient != null) {
+					int priority = 1 + random.nextInt(4);
+					reference.reprioritize(patient, priority);
+					mapped.reprioritize(records.get(patient.getID()), priority);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reopens the waiting room saved in file and empties it alongside reference.
+	 *
+	 * @return true if both saw the same patients in the same order
+	 */
+	static boolean drain(Path file, PatientTriage reference) throws IOException, BoundaryViolationException, EmptyQueueException {
+		MappedPatientTriage mapped = new MappedPatientTriage(new Time(5, 0), file);
+		boolean same = mapped.size() == reference.size() && mapped.getMaxWaitMinutes() == reference.getMaxWaitMinutes();
+		for (long now = 150; same && !reference.isEmpty(); now += 7) {
+			same = mapped.remove(now) == reference.remove(now).getID();
+		}
+		mapped.close();
+		return same;
+	}
+}
@@ -82,6 +82,72 @@ public class testPatientTriage {
         System.out.println(patient);
 		System.out.println("correct: patient 2");
 		
+		//case 10
+		PatientTriage patientTriage3 = new PatientTriage(new Time(3, 0));
+		patientTriage3.add(new Patient(1, 3, new Time(0, 30)));
+		patientTriage3.add(new Patient(2, 2, new Time(1, 30)));
+		patientTriage3.add(new Patient(3, 4, new Time(2, 15)));
+		patientTriage3.add(new Patient(4, 1, new Time(2, 50)));
+		patientTriage3.add(new Patient(5, 7, new Time(3, 20)));
+		patientTriage3.add(new Patient(6, 2, new Time(0, 50)));
+
+		System.out.println();
+		for (Patient p : patientTriage3.removeBatch(new Time(4, 0), 4)) {
+			System.out.print("Now seeing: ");
+			System.out.println(p);
+		}
+		System.out.println("correct: patients 1, 6, 4, 2");
+
+		//case 11
+		java.util.List<Patient> drained = new java.util.ArrayList<>();
+		int count = patientTriage3.drainTo(drained, new Time(4, 0), 10);
+		for (Patient p : drained) {
+			System.out.print("Now seeing: ");
+			System.out.println(p);
+		}
+		System.out.println("correct: patients 3, 5");
+		System.out.println("Drained " + count + ", waiting " + patientTriage3.size());
+		System.out.println("correct: drained 2, waiting 0");
+
+		//case 12
+		try {
+			patientTriage3.removeBatch(new Time(4, 0), -1);
+			System.out.println("Incorrect: removeBatch accepted a negative count");
+		} catch (BoundaryViolationException ex) {
+			System.out.println("Correct: removeBatch throws Boundary Violation Exception given a negative count");
+		}
+
+		//case 13
+		PatientTriage patientTriage4 = new PatientTriage.Builder(new Time(3, 0)).priorityQueue(PatientTriage.Engine.PAIRING_HEAP)
+				.arrivalQueue(PatientTriage.Engine.PAIRING_HEAP).build();
+		patientTriage4.add(new Patient(1, 3, new Time(0, 30)));
+		patientTriage4.add(new Patient(7, 6, new Time(0, 50)));
+		patientTriage4.add(new Patient(2, 2, new Time(1, 30)));
+		patientTriage4.add(new Patient(6, 5, new Time(1, 45)));
+		patientTriage4.add(new Patient(3, 4, new Time(2, 15)));
+		patientTriage4.add(new Patient(4, 1, new Time(2, 50)));
+		System.out.println();
+		for (Patient p : patientTriage4.topK(3)) {
+			System.out.print("Listing: ");
+			System.out.println(p);
+		}
+		System.out.println("correct: patients 4, 2, 1");
+		for (Patient p : patientTriage4.overdue(new Time(4, 0))) {
+			System.out.print("Overdue: ");
+			System.out.println(p);
+		}
+		System.out.println("correct: patients 1, 7");
+
+		//case 14
+		patient = patientTriage4.remove(new Time (2, 0)).toString();
+        System.out.print("Now seeing: ");
+        System.out.println(patient);
+		System.out.println("correct: patient 4");
+		patient = patientTriage4.remove(new Time (4, 0)).toString();
+        System.out.print("Now seeing: ");
+        System.out.println(patient);
+		System.out.println("correct: patient 1");
+
 		long stopTime = System.nanoTime();
         double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
         System.out.println("Execution time: " + elapsedTime);
@@ -0,0 +1,95 @@
+package A2Q2;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Test program for ShardedPatientTriage: find and cancel reach patients in
+ * any shard, a removal never sees a cancelled patient, and removals racing
+ * cancellations never report an empty waiting room while patients remain.
+ */
+public class testShardedPatientTriage {
+	public static void main(String[] args) throws Exception {
+		long startTime = System.nanoTime();
+
+		//case 1: find and cancel across shards, including patients added by ward
+		ShardedPatientTriage triage = new ShardedPatientTriage(new Time(3, 0), 4);
+		for (int id = 1; id <= 40; id++) {
+			Patient patient = new Patient(id, 1 + id % 5, (long) id);
+			if (id % 2 == 0) {
+				triage.add(patient);
+			} else {
+				triage.add(patient, id % 7); //not the shard chosen by ID
+			}
+		}
+		boolean correct = true;
+		for (int id = 1; id <= 40; id++) {
+			Patient patient = triage.find(id);
+			correct = correct && patient != null && patient.getID() == id;
+		}
+		for (int id = 1; id <= 40; id += 3) {
+			correct = correct && triage.cancel(id).getID() == id && triage.find(id) == null && triage.cancel(id) == null;
+		}
+		correct = correct && triage.find(41) == null && triage.cancel(41) == null && triage.size() == 26;
+		Set<Integer> seen = new HashSet<>();
+		long now = 0;
+		while (correct && !triage.isEmpty()) {
+			int id = triage.remove(now += 10).getID();
+			correct = id % 3 != 1 && seen.add(id); //never a cancelled patient
+		}
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 1, find and cancel reach every shard.");
+
+		//case 2: removals racing cancellations
+		int failures = 0;
+		int rounds = 2000;
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		for (int round = 0; round < rounds; round++) {
+			final ShardedPatientTriage shared = new ShardedPatientTriage(new Time(3, 0), ShardedPatientTriage.MAX_SHARDS);
+			final int n = 2 * ShardedPatientTriage.MAX_SHARDS; //shards empty often
+			for (int id = 1; id <= n; id++) {
+				shared.add(new Patient(id, 1 + id % 5, (long) (id % 100)));
+			}
+			final AtomicInteger taken = new AtomicInteger();
+			final AtomicBoolean emptyTooSoon = new AtomicBoolean();
+			List<Future<?>> tasks = new ArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				final int seed = 2 * round + t;
+				tasks.add(pool.submit(() -> { //cancels patients in a random order
+					Random random = new Random(seed);
+					while (taken.get() < n) {
+						if (shared.cancel(1 + random.nextInt(n)) != null) {
+							taken.incrementAndGet();
+						}
+					}
+				}));
+				tasks.add(pool.submit(() -> {
+					while (taken.get() < n) {
+						try {
+							shared.remove(1000);
+							taken.incrementAndGet();
+						} catch (EmptyQueueException ex) {
+							if (!shared.isEmpty()) { //patients are never added, so none were waiting at the throw either
+								emptyTooSoon.set(true);
+								return null;
+							}
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+			if (emptyTooSoon.get() || taken.get() != n || !shared.isEmpty()) {
+				failures++;
+			}
+		}
+		pool.shutdown();
+		System.out.println((failures == 0 ? "Correct: " : "Incorrect: ") + "case 2, removals racing cancellations never find the waiting room empty too soon"
+				+ (failures == 0 ? "." : " in " + failures + " rounds of " + rounds + "."));
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+}
@@ -0,0 +1,202 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Test program for the engines of PatientTriage: for every combination of
+ * priority and arrival engine, eager and lazy, a triage given random
+ * operations must see, list and cancel the same patients as a reference
+ * model kept in plain lists.  The operations include out-of-order arrivals
+ * and priorities beyond the bucket levels, so that queues move onto heaps.
+ */
+public class testTriageEngines {
+
+	/**
+	 * A patient in the reference model.
+	 */
+	static class Entry {
+		final int id;
+		int priority;
+		final long arrival;
+		final long seq; //order of admission
+		long prioritySeq; //order of admission or last re-triage
+
+		Entry(int id, int priority, long arrival, long seq) {
+			this.id = id;
+			this.priority = priority;
+			this.arrival = arrival;
+			this.seq = seq;
+			this.prioritySeq = seq;
+		}
+	}
+
+	static final Comparator<Entry> BY_PRIORITY = (a, b) -> a.priority != b.priority ? Integer.compare(a.priority, b.priority) : Long.compare(a.prioritySeq, b.prioritySeq);
+	static final Comparator<Entry> BY_ARRIVAL = (a, b) -> a.arrival != b.arrival ? Long.compare(a.arrival, b.arrival) : Long.compare(a.seq, b.seq);
+
+	public static void main(String[] args) throws BoundaryViolationException, EmptyQueueException {
+		long startTime = System.nanoTime();
+		PatientTriage.Engine[] priorityEngines = {PatientTriage.Engine.BUCKETS, PatientTriage.Engine.DARY_HEAP, PatientTriage.Engine.KEYED_HEAP,
+				PatientTriage.Engine.PAIRING_HEAP};
+		PatientTriage.Engine[] arrivalEngines = {PatientTriage.Engine.FIFO, PatientTriage.Engine.DARY_HEAP, PatientTriage.Engine.KEYED_HEAP,
+				PatientTriage.Engine.PAIRING_HEAP, PatientTriage.Engine.RADIX_HEAP};
+		int failures = 0;
+		int runs = 0;
+		for (PatientTriage.Engine priorityEngine : priorityEngines) {
+			for (PatientTriage.Engine arrivalEngine : arrivalEngines) {
+				for (boolean lazy : new boolean[] {false, true}) {
+					for (long seed = 0; seed < 2; seed++) {
+						String failure = run(priorityEngine, arrivalEngine, lazy, seed);
+						runs++;
+						if (failure != null) {
+							System.out.println("Incorrect: " + priorityEngine + " and " + arrivalEngine + (lazy ? ", lazy" : ", eager")
+									+ ", seed " + seed + ": " + failure);
+							failures++;
+						}
+					}
+				}
+			}
+		}
+		if (failures == 0) {
+			System.out.println("Correct: every combination of engines agrees with the reference model in " + runs + " runs.");
+		}
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	/**
+	 * @return a description of the first disagreement, or null if there is none
+	 */
+	static String run(PatientTriage.Engine priorityEngine, PatientTriage.Engine arrivalEngine, boolean lazy, long seed)
+			throws BoundaryViolationException, EmptyQueueException {
+		PatientTriage triage = new PatientTriage.Builder(new Time(2, 0)).priorityQueue(priorityEngine)
+				.arrivalQueue(arrivalEngine).lazyDeletion(lazy).build();
+		List<Entry> model = new ArrayList<>(); //waiting patients, in no order
+		long maxWait = 120;
+		long seq = 0;
+		int id = 0;
+		long now = 0;
+		Random random = new Random(seed);
+		boolean inOrder = random.nextBoolean(); //arrivals in order until a late one
+		for (int step = 0; step < 4000; step++) {
+			int op = random.nextInt(16);
+			now += random.nextInt(3);
+			if (inOrder && random.nextInt(500) == 0) {
+				inOrder = false;
+			}
+			String expected;
+			String actual;
+			if (op < 6 || model.isEmpty()) {
+				int priority = random.nextInt(300) == 0 ? 100 : 1 + random.nextInt(5); //100 is beyond the bucket levels
+				long arrival = inOrder ? now : Math.max(0, now - random.nextInt(40));
+				triage.add(new Patient(++id, priority, arrival));
+				model.add(new Entry(id, priority, arrival, seq++));
+				expected = actual = "added";
+			} else if (op == 6) {
+				List<Patient> batch = new ArrayList<>();
+				int n = random.nextInt(6);
+				for (int i = 0; i < n; i++) {
+					long arrival = inOrder ? now : Math.max(0, now - random.nextInt(40));
+					batch.add(new Patient(++id, 1 + random.nextInt(5), arrival));
+					model.add(new Entry(id, batch.get(i).getPriority(), arrival, seq++));
+				}
+				triage.addAll(batch);
+				expected = actual = "added all";
+			} else if (op < 10) {
+				expected = "seen " + next(model, now - maxWait).id;
+				actual = "seen " + triage.remove(now).getID();
+			} else if (op == 10) {
+				int n = random.nextInt(5);
+				List<Integer> ids = new ArrayList<>();
+				for (int i = 0; i < n && !model.isEmpty(); i++) {
+					ids.add(next(model, now - maxWait).id);
+				}
+				expected = "batch " + ids;
+				actual = "batch " + testLazyDeletion.ids(random.nextBoolean() ? triage.removeBatch(now, n) : drain(triage, now, n));
+			} else if (op == 11) {
+				int target = id - random.nextInt(20);
+				int priority = 1 + random.nextInt(5);
+				Entry entry = find(model, target);
+				if (entry != null) {
+					entry.priority = priority;
+					entry.prioritySeq = seq++;
+				}
+				Patient patient = triage.find(target);
+				if (patient != null) {
+					triage.reprioritize(patient, priority);
+				}
+				expected = "re-triaged " + (entry == null ? 0 : entry.id);
+				actual = "re-triaged " + (patient == null ? 0 : patient.getID());
+			} else if (op == 12) {
+				int target = id - random.nextInt(20);
+				Entry entry = find(model, target);
+				model.remove(entry);
+				Patient patient = triage.cancel(target);
+				expected = "cancelled " + (entry == null ? 0 : entry.id);
+				actual = "cancelled " + (patient == null ? 0 : patient.getID());
+			} else if (op == 13) {
+				int k = random.nextInt(10);
+				List<Entry> sorted = new ArrayList<>(model);
+				sorted.sort(BY_PRIORITY);
+				expected = "top " + ids(sorted.subList(0, Math.min(k, sorted.size())));
+				actual = "top " + testLazyDeletion.ids(triage.topK(k));
+			} else if (op == 14) {
+				List<Entry> sorted = new ArrayList<>(model);
+				sorted.sort(BY_ARRIVAL);
+				int n = 0;
+				while (n < sorted.size() && sorted.get(n).arrival <= now - maxWait) {
+					n++;
+				}
+				expected = "overdue " + ids(sorted.subList(0, n));
+				actual = "overdue " + testLazyDeletion.ids(triage.overdue(now));
+			} else {
+				maxWait = 60 + random.nextInt(120);
+				triage.setMaxWait(maxWait);
+				expected = actual = "max wait " + maxWait;
+			}
+			Entry first = model.isEmpty() ? null : Collections.min(model, BY_ARRIVAL);
+			expected += " size " + model.size() + " next " + (first == null ? Long.MAX_VALUE : first.arrival + maxWait);
+			actual += " size " + triage.size() + " next " + triage.nextDeadline();
+			if (!expected.equals(actual)) {
+				return "step " + step + ": expected " + expected + ", got " + actual;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the patient the model sees next: the one who has waited
+	 * longest if they arrived by cutoff, otherwise the first by priority.
+	 */
+	static Entry next(List<Entry> model, long cutoff) {
+		Entry first = Collections.min(model, BY_ARRIVAL);
+		if (first.arrival > cutoff) {
+			first = Collections.min(model, BY_PRIORITY);
+		}
+		model.remove(first);
+		return first;
+	}
+
+	static List<Patient> drain(PatientTriage triage, long now, int max) throws BoundaryViolationException {
+		List<Patient> drained = new ArrayList<>();
+		triage.drainTo(drained, now, max);
+		return drained;
+	}
+
+	static Entry find(List<Entry> model, int id) {
+		for (Entry entry : model) {
+			if (entry.id == id) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	static List<Integer> ids(List<Entry> entries) {
+		List<Integer> ids = new ArrayList<>();
+		for (Entry entry : entries) {
+			ids.add(entry.id);
+		}
+		return ids;
+	}
+}
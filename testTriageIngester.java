@@ -0,0 +1,97 @@
+package A2Q2;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Test program for TriageIngester: a random stream of arrivals, re-triages
+ * and patients seen, in text and binary, read whole and a few bytes at a
+ * time, must select the same patients in the same order as applying the
+ * events to a PatientTriage one at a time, and reject the same events.
+ */
+public class testTriageIngester {
+	public static void main(String[] args) throws IOException, InterruptedException, BoundaryViolationException {
+		long startTime = System.nanoTime();
+		for (long seed = 0; seed < 5; seed++) {
+			Random random = new Random(seed);
+			ByteArrayOutputStream text = new ByteArrayOutputStream();
+			ByteArrayOutputStream binaryBytes = new ByteArrayOutputStream();
+			DataOutputStream binary = new DataOutputStream(binaryBytes);
+			PatientTriage reference = new PatientTriage(new Time(3, 0));
+			List<Integer> expected = new ArrayList<>(); //IDs seen
+			int rejected = 0;
+			int id = 0;
+			long now = 60;
+			for (int event = 0; event < 6000; event++) {
+				int op = random.nextInt(20);
+				if (op < 9) {
+					Patient patient = new Patient(++id, 1 + random.nextInt(4), now - random.nextInt(60));
+					reference.add(patient);
+					text.write(("A " + patient.getID() + " " + patient.getPriority() + " " + patient.getArrival() + "\n").getBytes("US-ASCII"));
+					binary.writeByte('A');
+					binary.writeInt(patient.getID());
+					binary.writeInt(patient.getPriority());
+					binary.writeLong(patient.getArrival());
+				} else if (op < 12) {
+					int target = id - random.nextInt(20); //may have been seen already
+					int priority = 1 + random.nextInt(4);
+					Patient patient = reference.find(target);
+					if (patient == null) {
+						rejected++;
+					} else {
+						reference.reprioritize(patient, priority);
+					}
+					text.write(("R\t" + target + "\t" + priority + "\r\n").getBytes("US-ASCII"));
+					binary.writeByte('R');
+					binary.writeInt(target);
+					binary.writeInt(priority);
+				} else if (op < 19) {
+					now += random.nextInt(3); //often several seen at the same time
+					try {
+						expected.add(reference.remove(now).getID());
+					} catch (EmptyQueueException ex) {
+						rejected++;
+					}
+					text.write(("S " + now + "\n").getBytes("US-ASCII"));
+					binary.writeByte('S');
+					binary.writeLong(now);
+				} else {
+					rejected++;
+					text.write("A 1 x 2\n# comment\n\n".getBytes("US-ASCII")); //one malformed event
+					binary.writeByte('X');
+				}
+			}
+			binary.flush();
+
+			int failures = 0;
+			for (TriageIngester.Format format : TriageIngester.Format.values()) {
+				byte[] stream = format == TriageIngester.Format.TEXT ? text.toByteArray() : binaryBytes.toByteArray();
+				for (boolean trickle : new boolean[] {false, true}) {
+					PatientTriage triage = new PatientTriage(new Time(3, 0));
+					List<Integer> seen = new ArrayList<>();
+					TriageIngester ingester = new TriageIngester(triage, (patient, time) -> seen.add(patient.getID()), format, 7, 2);
+					InputStream in = new ByteArrayInputStream(stream);
+					if (trickle) {
+						in = new FilterInputStream(in) {
+							public int read(byte[] b, int off, int len) throws IOException {
+								return super.read(b, off, Math.min(len, 5)); //splits events across reads
+							}
+						};
+					}
+					ingester.run(in);
+					if (!seen.equals(expected) || ingester.getRejected() != rejected || triage.size() != reference.size()) {
+						System.out.println("Incorrect: seed " + seed + ", " + format + (trickle ? " read 5 bytes at a time" : "")
+								+ ": " + seen.size() + " seen and " + ingester.getRejected() + " rejected, expected " + expected.size() + " and " + rejected);
+						failures++;
+					}
+				}
+			}
+			if (failures == 0) {
+				System.out.println("Correct: seed " + seed + " ingests " + expected.size() + " patients seen and " + rejected + " rejected in both formats.");
+			}
+		}
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+}
@@ -0,0 +1,86 @@
+package A2Q2;
+
+import java.util.*;
+
+/**
+ * Test program for TriageSimulator: a run is reproducible from its seed on a
+ * new simulator, on one reused from another run and through runAll; every
+ * patient who arrives is either seen or still waiting at the end; and an
+ * M/M/c ward keeps its staff busy and its patients waiting as long as queueing
+ * theory (Erlang C) predicts.
+ */
+public class testTriageSimulator {
+	public static void main(String[] args) {
+		long startTime = System.nanoTime();
+		double[] mix = {1, 2, 4, 2, 1};
+		TriageSimulator.Scenario busy = new TriageSimulator.Scenario(120, 9, mix, TriageSimulator.ServiceTime.exponential(40, 30, 20, 15, 10), 3, 20, 42);
+		TriageSimulator.Scenario quiet = new TriageSimulator.Scenario(60, 4, mix, TriageSimulator.ServiceTime.fixed(15), 2, 20, 7);
+
+		//case 1: the same seed gives the same run
+		TriageSimulator simulator = new TriageSimulator();
+		String first = outcome(simulator.run(busy));
+		simulator.run(quiet); //leaves patients in the reused triage
+		boolean correct = outcome(simulator.run(busy)).equals(first) && outcome(new TriageSimulator().run(busy)).equals(first);
+		TriageSimulator.Result[] results = TriageSimulator.runAll(busy, quiet, busy);
+		correct = correct && outcome(results[0]).equals(first) && outcome(results[2]).equals(first)
+				&& !outcome(results[1]).equals(first);
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 1, runs with the same seed are identical, also on a reused simulator and in runAll.");
+
+		//case 2: every patient who arrives is seen or left waiting
+		correct = true;
+		for (TriageSimulator.Scenario scenario : new TriageSimulator.Scenario[] {busy, quiet,
+				new TriageSimulator.Scenario(30, 30, mix, TriageSimulator.ServiceTime.fixed(20), 4, 5, 3)}) { //overloaded
+			TriageSimulator.Result result = new TriageSimulator().run(scenario);
+			correct = correct && result.getArrivals() > 0 && result.getSeen() + result.getLeftWaiting() == result.getArrivals()
+					&& result.getOverdue() <= result.getSeen();
+		}
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 2, every patient who arrives is seen or still waiting at the end.");
+
+		//case 3: M/M/c with one priority, so patients are seen in order of arrival
+		double lambda = 4.8; //arrivals per hour
+		double mu = 2; //patients seen per hour by each of staff
+		int staff = 3;
+		TriageSimulator.Result result = new TriageSimulator().run(new TriageSimulator.Scenario(1440, lambda, new double[] {1},
+				TriageSimulator.ServiceTime.exponential(60 / mu), staff, 2000, 11));
+		double rho = lambda / (staff * mu);
+		double expectedWait = 60 * erlangC(staff, lambda / mu) / (staff * mu - lambda); //in minutes
+		double wait = result.getWaitMinutes(1).getMean();
+		correct = Math.abs(result.getUtilization() - rho) < 0.01 && Math.abs(wait - expectedWait) < 0.1 * expectedWait;
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + String.format("case 3, M/M/%d utilization %.3f and mean wait %.1f min, expected %.3f and %.1f.",
+				staff, result.getUtilization(), wait, rho, expectedWait));
+
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	/**
+	 * @return the outcome of a run, without its speed
+	 */
+	static String outcome(TriageSimulator.Result result) {
+		StringBuilder s = new StringBuilder();
+		s.append(result.getArrivals()).append(' ').append(result.getOverdue()).append(' ').append(result.getLeftWaiting())
+				.append(' ').append(result.getUtilization());
+		for (int p = 1; p <= result.getScenario().getPriorityMix().length; p++) {
+			Histogram waits = result.getWaitMinutes(p);
+			s.append(" p").append(p).append(' ').append(waits.getCount()).append(' ').append(waits.getMean())
+					.append(' ').append(waits.getValueAtPercentile(90)).append(' ').append(waits.getMax());
+		}
+		return s.toString();
+	}
+
+	/**
+	 * @return probability that an arrival waits in an M/M/c queue with c
+	 * servers and offered load a = lambda / mu
+	 */
+	static double erlangC(int c, double a) {
+		double term = 1; //a^k / k!
+		double sum = 0;
+		for (int k = 0; k < c; k++) {
+			sum += term;
+			term *= a / (k + 1);
+		}
+		double waiting = term * c / (c - a);
+		return waiting / (sum + waiting);
+	}
+}
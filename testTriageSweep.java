@@ -0,0 +1,58 @@
+package A2Q2;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Test program for TriageSweep: a 2 by 2 grid of maxWait values and arrival
+ * rates is written as CSV with the expected header and one row per cell, in
+ * the order of scenarios(), and the same seeds give the same rows on any
+ * pool.
+ */
+public class testTriageSweep {
+	public static void main(String[] args) throws IOException {
+		long startTime = System.nanoTime();
+		TriageSweep sweep = new TriageSweep(new long[] {60, 120}, new double[] {6, 10}, new double[][] {{1, 2, 3}},
+				TriageSimulator.ServiceTime.exponential(30, 20, 10), 3, 10, 42);
+		StringBuilder csv = new StringBuilder();
+		TriageSweep.writeCsv(sweep.run(), csv);
+		String[] lines = csv.toString().split("\n");
+
+		//case 1: header and row count
+		boolean correct = lines.length == 5 && lines[0].equals("maxWait,arrivalsPerHour,mix,staff,days,seed,arrivals,seen,overdue,leftWaiting,utilization"
+				+ ",p1Mean,p1P50,p1P90,p1P99,p1Max,p2Mean,p2P50,p2P90,p2P99,p2Max,p3Mean,p3P50,p3P90,p3P99,p3Max");
+		for (int i = 1; i < lines.length; i++) {
+			correct = correct && lines[i].split(",", -1).length == 26;
+		}
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 1, the CSV has the header and 4 rows of 26 columns.");
+
+		//case 2: rows in the order of scenarios(), with the same arrivals for the same rate
+		String[] expected = {"60,6.0,", "120,6.0,", "60,10.0,", "120,10.0,"};
+		correct = lines.length == 5;
+		for (int i = 1; i < lines.length && correct; i++) {
+			correct = lines[i].startsWith(expected[i - 1] + "1.0:2.0:3.0,3,10,42,");
+		}
+		correct = correct && column(lines[1], 6).equals(column(lines[2], 6)) && column(lines[3], 6).equals(column(lines[4], 6))
+				&& !column(lines[1], 6).equals(column(lines[3], 6));
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 2, rows follow scenarios() and cells differing only by maxWait see the same arrivals.");
+
+		//case 3: the same seeds give the same rows, on the common pool and on a pool of 2
+		StringBuilder again = new StringBuilder();
+		TriageSweep.writeCsv(sweep.run(), again);
+		ForkJoinPool pool = new ForkJoinPool(2);
+		StringBuilder onPool = new StringBuilder();
+		TriageSweep.writeCsv(sweep.run(pool), onPool);
+		pool.shutdown();
+		correct = again.toString().equals(csv.toString()) && onPool.toString().equals(csv.toString());
+		System.out.println((correct ? "Correct: " : "Incorrect: ") + "case 3, running the sweep again gives the same rows.");
+
+		long stopTime = System.nanoTime();
+		double elapsedTime = (double) (stopTime - startTime) / 1000000; //in msec
+		System.out.println("Execution time: " + elapsedTime);
+	}
+
+	static String column(String row, int index) {
+		return row.split(",", -1)[index];
+	}
+}